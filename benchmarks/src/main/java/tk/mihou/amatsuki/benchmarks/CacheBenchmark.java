@@ -0,0 +1,155 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.StoryBuilder;
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    /**
+     * The CacheManager under multi-threaded read and write mixes, each group is
+     * measured with both a uniform key distribution and a hot one (90% of the
+     * operations land on 1% of the keys), and with a maximum size that either
+     * fits every key or keeps the cache evicting.
+     */
+
+    static final int KEYS = 10_000;
+
+    @Param({"uniform", "hot"})
+    public String distribution;
+
+    @Param({"fits", "evicts"})
+    public String capacity;
+
+    String[] keys;
+    Story[] stories;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        keys = new String[KEYS];
+        stories = new Story[KEYS];
+        for(int i = 0; i < KEYS; i++){
+            keys[i] = "https://www.scribblehub.com/series/" + i + "/benchmark/";
+            stories[i] = story(i);
+        }
+
+        CacheManager.setLifespan(1, TimeUnit.HOURS);
+        CacheManager.setMaximumSize(capacity.equals("fits") ? KEYS * 2 : KEYS / 2);
+        for(int i = 0; i < KEYS; i++){
+            CacheManager.addCache(stories[i], keys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        for(String key : keys){
+            CacheManager.invalidate(key);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        // The keys this thread goes through, picked ahead so the benchmark doesn't measure the random.
+        private static final int MASK = (1 << 16) - 1;
+        private final int[] indexes = new int[MASK + 1];
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setup(CacheBenchmark benchmark){
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            int hot = Math.max(1, KEYS / 100);
+            for(int i = 0; i < indexes.length; i++){
+                if(benchmark.distribution.equals("hot") && random.nextInt(10) != 0){
+                    indexes[i] = random.nextInt(hot);
+                } else {
+                    indexes[i] = random.nextInt(KEYS);
+                }
+            }
+        }
+
+        int next(){
+            return indexes[position++ & MASK];
+        }
+
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(7)
+    public Object readHeavyRead(Cursor cursor){
+        return read(cursor);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public Object readHeavyWrite(Cursor cursor){
+        int index = cursor.next();
+        return CacheManager.replace(stories[index], keys[index]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public Object mixedRead(Cursor cursor){
+        return read(cursor);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public Object mixedWrite(Cursor cursor){
+        int index = cursor.next();
+        return CacheManager.addCache(stories[index], keys[index]);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(4)
+    public Object churnRead(Cursor cursor){
+        return read(cursor);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(4)
+    public Object churnWrite(Cursor cursor){
+        // Entities that expire almost right away, so readers keep running into expired entries.
+        int index = cursor.next();
+        return CacheManager.addCache(stories[index], keys[index], 1, TimeUnit.MILLISECONDS);
+    }
+
+    private Object read(Cursor cursor){
+        CacheEntity<?> entity = CacheManager.getEntity(keys[cursor.next()]);
+        return entity == null ? null : entity.value();
+    }
+
+    /**
+     * Creates a story whose title and favorites both carry the version,
+     * which lets the stress test spot a story that doesn't belong together.
+     * @param version the version of the story.
+     * @return the story.
+     */
+    static Story story(int version){
+        StoryBuilder builder = new StoryBuilder();
+        builder.setTitle("v" + version);
+        builder.setUrl("https://www.scribblehub.com/series/" + version + "/benchmark/");
+        builder.setViews(version + " Views");
+        builder.setFavorites(version + " Favorites");
+        builder.setSID(version);
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,312 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.RequestCoalescer;
+import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CacheStress {
+
+    /**
+     * Hammers the CacheManager and the RequestCoalescer from many threads and checks
+     * the invariants that the benchmarks can't: no torn or out of order reads, no lost
+     * writes, a bounded size under eviction and a single request per coalesced key.
+     *
+     * Run with: java -cp target/benchmarks.jar tk.mihou.amatsuki.benchmarks.CacheStress [seconds per check]
+     * The process exits with 1 when any of the checks fail.
+     */
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final List<String> failures = new CopyOnWriteArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+
+        CacheManager.setLifespan(1, TimeUnit.HOURS);
+        check("ordered, untorn reads", () -> orderedReads(deadline(seconds)));
+        check("no lost writes", CacheStress::lostWrites);
+        check("bounded size under eviction", () -> boundedSize(deadline(seconds)));
+        check("single request per key", CacheStress::coalescing);
+        check("expiry churn", () -> expiryChurn(deadline(seconds)));
+
+        if(!failures.isEmpty()){
+            failures.forEach(failure -> System.out.println("FAIL " + failure));
+            System.exit(1);
+        }
+
+        System.out.println("PASS all checks.");
+    }
+
+    /**
+     * One writer per key replaces the story with increasing versions while readers
+     * check that every story they see belongs together and never goes back in version.
+     */
+    private static void orderedReads(long deadline) throws Exception {
+        int keys = 64;
+        CacheManager.setMaximumSize(keys * 4);
+        String[] names = keys("ordered", keys);
+        for(String name : names){
+            CacheManager.addCache(CacheBenchmark.story(0), name);
+        }
+
+        run(THREADS, thread -> {
+            if(thread < keys && thread % 2 == 0){
+                // Writers, each owns a couple of keys.
+                int version = 0;
+                while(System.nanoTime() < deadline){
+                    version++;
+                    for(int key = thread; key < keys; key += THREADS){
+                        CacheManager.replace(CacheBenchmark.story(version), names[key]);
+                    }
+                }
+                return;
+            }
+
+            long[] seen = new long[keys];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while(System.nanoTime() < deadline){
+                int key = random.nextInt(keys);
+                CacheEntity<?> entity = CacheManager.getEntity(names[key]);
+                if(entity == null){
+                    fail("ordered, untorn reads", names[key] + " went missing.");
+                    return;
+                }
+
+                Story story = (Story) entity.value();
+                long version = story.getFavorites();
+                if(!story.getTitle().equals("v" + version) || story.getSID() != version){
+                    fail("ordered, untorn reads", "torn story " + story.getTitle() + " with " + version + " favorites.");
+                    return;
+                }
+
+                if(version < seen[key]){
+                    fail("ordered, untorn reads", names[key] + " went from v" + seen[key] + " back to v" + version + ".");
+                    return;
+                }
+
+                seen[key] = version;
+            }
+        });
+
+        invalidate(names);
+    }
+
+    /**
+     * Every thread inserts its own keys at the same time, all of them have to be there afterwards.
+     */
+    private static void lostWrites() throws Exception {
+        int perThread = 5_000;
+        CacheManager.setMaximumSize(THREADS * perThread * 2);
+        String[][] names = new String[THREADS][];
+
+        run(THREADS, thread -> {
+            names[thread] = keys("lost-" + thread, perThread);
+            for(int i = 0; i < perThread; i++){
+                CacheManager.addCache(CacheBenchmark.story(i), names[thread][i]);
+            }
+        });
+
+        for(String[] keys : names){
+            for(int i = 0; i < keys.length; i++){
+                Story story = CacheManager.getCache(Story.class, keys[i]);
+                if(story == null || story.getFavorites() != i){
+                    fail("no lost writes", keys[i] + " was lost.");
+                    break;
+                }
+            }
+
+            invalidate(keys);
+        }
+    }
+
+    /**
+     * Writers keep inserting new keys into a small cache, the cache may go over the limit
+     * while an eviction is running but has to settle back under it.
+     */
+    private static void boundedSize(long deadline) throws Exception {
+        int maximum = 1_000;
+        CacheManager.setMaximumSize(maximum);
+        AtomicInteger peak = new AtomicInteger();
+        AtomicLong counter = new AtomicLong();
+
+        run(THREADS, thread -> {
+            while(System.nanoTime() < deadline){
+                long id = counter.incrementAndGet();
+                CacheManager.addCache(CacheBenchmark.story((int) id), "bounded-" + id);
+                peak.accumulateAndGet(CacheManager.size(), Math::max);
+            }
+        });
+
+        CacheManager.setMaximumSize(maximum);
+        int size = CacheManager.size();
+        System.out.println("  " + counter.get() + " inserts, peak size " + peak.get() + ", final size " + size + " (maximum " + maximum + ").");
+        if(size > maximum){
+            fail("bounded size under eviction", "the cache settled at " + size + " entries.");
+        }
+
+        for(long id = 1; id <= counter.get(); id++){
+            CacheManager.invalidate("bounded-" + id);
+        }
+    }
+
+    /**
+     * Every thread asks for the same key while the request is still running, the loader
+     * must only be called once and every caller must get its result.
+     */
+    private static void coalescing() throws Exception {
+        for(int round = 0; round < 200; round++){
+            String key = "coalesce-" + round;
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch joined = new CountDownLatch(THREADS);
+            CompletableFuture<Story> request = new CompletableFuture<>();
+            List<CompletableFuture<Story>> results = new CopyOnWriteArrayList<>();
+
+            Thread completer = new Thread(() -> {
+                try {
+                    joined.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                request.complete(CacheBenchmark.story(7));
+            });
+
+            completer.start();
+            run(THREADS, thread -> {
+                results.add(RequestCoalescer.coalesce(key, () -> {
+                    loads.incrementAndGet();
+                    return request;
+                }));
+                joined.countDown();
+            });
+
+            for(CompletableFuture<Story> result : results){
+                if(result.get(10, TimeUnit.SECONDS).getFavorites() != 7){
+                    fail("single request per key", "a caller got the wrong result.");
+                }
+            }
+
+            completer.join();
+            if(loads.get() != 1){
+                fail("single request per key", key + " was requested " + loads.get() + " times.");
+                return;
+            }
+
+            if(RequestCoalescer.isInflight(key)){
+                fail("single request per key", key + " is still in-flight after it completed.");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writers insert entities that expire almost right away while readers and cleaners
+     * run into them, nothing may throw and the expirations have to be counted.
+     */
+    private static void expiryChurn(long deadline) throws Exception {
+        int keys = 256;
+        CacheManager.setMaximumSize(keys * 4);
+        String[] names = keys("churn", keys);
+        long before = CacheManager.getStatistics().getType(CacheTypes.DEFAULT).getExpirations();
+
+        run(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while(System.nanoTime() < deadline){
+                String key = names[random.nextInt(keys)];
+                switch (thread % 3){
+                    case 0:
+                        CacheManager.addCache(CacheBenchmark.story(thread), key, 1, TimeUnit.MILLISECONDS);
+                        break;
+                    case 1:
+                        CacheEntity<?> entity = CacheManager.getEntity(key);
+                        if(entity != null && !(entity.value() instanceof Story)){
+                            fail("expiry churn", key + " held " + entity.value() + ".");
+                            return;
+                        }
+                        break;
+                    default:
+                        if(random.nextInt(64) == 0)
+                            CacheManager.cleanUp();
+                        else
+                            CacheManager.getCache(Story.class, key);
+                }
+            }
+        });
+
+        long expirations = CacheManager.getStatistics().getType(CacheTypes.DEFAULT).getExpirations() - before;
+        System.out.println("  " + expirations + " expirations.");
+        if(expirations == 0){
+            fail("expiry churn", "no expirations were recorded.");
+        }
+
+        invalidate(names);
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private interface Check {
+        void run() throws Exception;
+    }
+
+    private static void check(String name, Check check) throws Exception {
+        int previous = failures.size();
+        long start = System.nanoTime();
+        check.run();
+        System.out.println((failures.size() == previous ? "ok   " : "FAIL ") + name + " (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms)");
+    }
+
+    private static void run(int threads, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for(int i = 0; i < threads; i++){
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+
+        try {
+            for(Future<?> future : futures){
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long deadline(long seconds){
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    private static void fail(String check, String reason){
+        failures.add(check + ": " + reason);
+    }
+
+    private static String[] keys(String prefix, int amount){
+        String[] keys = new String[amount];
+        for(int i = 0; i < amount; i++){
+            keys[i] = prefix + "-" + i;
+        }
+
+        return keys;
+    }
+
+    private static void invalidate(String[] keys){
+        for(String key : keys){
+            CacheManager.invalidate(key);
+        }
+    }
+
+}
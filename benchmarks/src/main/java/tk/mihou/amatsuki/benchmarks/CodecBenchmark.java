@@ -0,0 +1,101 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import tk.mihou.amatsuki.api.parser.AmatsukiParser;
+import tk.mihou.amatsuki.api.parser.PageType;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.impl.codec.CodecWriter;
+import tk.mihou.amatsuki.impl.codec.EntityCodec;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    /**
+     * The binary EntityCodec against Gson as the JSON baseline, encoding and decoding
+     * the entities the disk cache stores, parsed from the fixtures. Run with -prof gc to
+     * compare the allocations, the sizes of both encodings are printed during the setup.
+     */
+
+    static final String STORY_URL = "https://www.scribblehub.com/series/102193/reincarnated-as-a-library-card/";
+    static final String USER_URL = "https://www.scribblehub.com/profile/20003/author-20003/";
+
+    private static final Type STORY_RESULTS = new TypeToken<List<StoryResults>>(){}.getType();
+
+    @Param({"story", "user", "ranking", "homepage"})
+    public String entity;
+
+    private final Gson gson = new Gson();
+    private final CodecWriter writer = new CodecWriter();
+
+    private Object value;
+    private Type type;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setup(){
+        switch (entity){
+            case "story":
+                value = AmatsukiParser.parse(PageType.STORY, Fixtures.bytes("story.html"), STORY_URL);
+                type = Story.class;
+                break;
+            case "user":
+                value = AmatsukiParser.parse(PageType.USER, Fixtures.bytes("user.html"), USER_URL);
+                type = User.class;
+                break;
+            case "ranking":
+                value = AmatsukiParser.parse(PageType.STORY_RESULTS, Fixtures.bytes("ranking.html"), Fixtures.BASE_URI);
+                type = STORY_RESULTS;
+                break;
+            case "homepage":
+                value = AmatsukiParser.parse(PageType.HOMEPAGE, Fixtures.bytes("homepage.html"), Fixtures.BASE_URI);
+                type = HomepageSnapshot.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown entity " + entity);
+        }
+
+        ByteBuffer buffer = EntityCodec.encode(value);
+        binary = new byte[buffer.remaining()];
+        buffer.get(binary);
+        json = gson.toJson(value, type).getBytes(StandardCharsets.UTF_8);
+        System.out.println(entity + ": codec=" + binary.length + " bytes, json=" + json.length + " bytes");
+    }
+
+    @Benchmark
+    public ByteBuffer encodeCodec(){
+        return EntityCodec.encode(value, writer.reset()).toBuffer();
+    }
+
+    @Benchmark
+    public Object decodeCodec(){
+        return EntityCodec.decode(ByteBuffer.wrap(binary));
+    }
+
+    @Benchmark
+    public byte[] encodeJson(){
+        return gson.toJson(value, type).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object decodeJson(){
+        return gson.fromJson(new String(json, StandardCharsets.UTF_8), type);
+    }
+
+}
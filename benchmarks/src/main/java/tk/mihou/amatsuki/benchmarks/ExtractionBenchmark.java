@@ -0,0 +1,100 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tk.mihou.amatsuki.api.parser.AmatsukiParser;
+import tk.mihou.amatsuki.api.parser.PageType;
+import tk.mihou.amatsuki.entities.ForumThread;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.entities.user.lower.UserResults;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    /**
+     * Every extraction path of the connector, from the raw bytes of the page to
+     * the entities, which is what a request pays for once the page is downloaded.
+     * Run with -prof gc to get the allocation rate of each path.
+     */
+
+    private byte[] story;
+    private byte[] user;
+    private byte[] userDisabled;
+    private byte[] ranking;
+    private byte[] search;
+    private byte[] seriesFinder;
+    private byte[] homepage;
+
+    @Setup
+    public void setup(){
+        story = Fixtures.bytes("story.html");
+        user = Fixtures.bytes("user.html");
+        userDisabled = Fixtures.bytes("user-disabled.html");
+        ranking = Fixtures.bytes("ranking.html");
+        search = Fixtures.bytes("search.html");
+        seriesFinder = Fixtures.bytes("series-finder.html");
+        homepage = Fixtures.bytes("homepage.html");
+    }
+
+    @Benchmark
+    public Story story(){
+        return AmatsukiParser.parse(PageType.STORY, story, "https://www.scribblehub.com/series/102193/reincarnated-as-a-library-card/");
+    }
+
+    @Benchmark
+    public User user(){
+        return AmatsukiParser.parse(PageType.USER, user, "https://www.scribblehub.com/profile/20003/author-20003/");
+    }
+
+    @Benchmark
+    public User userDisabled(){
+        return AmatsukiParser.parse(PageType.USER, userDisabled, "https://www.scribblehub.com/profile/30004/reader-30004/");
+    }
+
+    @Benchmark
+    public List<StoryResults> ranking(){
+        return AmatsukiParser.parse(PageType.STORY_RESULTS, ranking, "https://www.scribblehub.com/series-ranking/?sort=5&order=1");
+    }
+
+    @Benchmark
+    public List<StoryResults> searchStories(){
+        return AmatsukiParser.parse(PageType.STORY_RESULTS, search, "https://www.scribblehub.com/?s=the&post_type=fictionposts");
+    }
+
+    @Benchmark
+    public List<UserResults> searchUsers(){
+        return AmatsukiParser.parse(PageType.USER_RESULTS, search, "https://www.scribblehub.com/?s=the&post_type=fictionposts");
+    }
+
+    @Benchmark
+    public List<StoryResults> seriesFinder(){
+        return AmatsukiParser.parse(PageType.STORY_RESULTS, seriesFinder, "https://www.scribblehub.com/series-finder/?sf=1");
+    }
+
+    @Benchmark
+    public List<LatestUpdatesResult> latestUpdates(){
+        return AmatsukiParser.parse(PageType.LATEST_UPDATES, homepage, "https://www.scribblehub.com/");
+    }
+
+    @Benchmark
+    public List<ForumThread> latestTopics(){
+        return AmatsukiParser.parse(PageType.LATEST_TOPICS, homepage, "https://www.scribblehub.com/");
+    }
+
+    @Benchmark
+    public HomepageSnapshot homepage(){
+        return AmatsukiParser.parse(PageType.HOMEPAGE, homepage, "https://www.scribblehub.com/");
+    }
+
+}
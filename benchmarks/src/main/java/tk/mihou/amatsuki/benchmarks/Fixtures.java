@@ -0,0 +1,62 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class Fixtures {
+
+    /**
+     * Loads the HTML pages under resources/fixtures, these are trimmed
+     * down copies of the ScribbleHub pages that the connector parses.
+     */
+
+    public static final String BASE_URI = "https://www.scribblehub.com/";
+
+    /**
+     * Reads the fixture as a string.
+     * @param name the file name of the fixture.
+     * @return the HTML of the fixture.
+     */
+    public static String html(String name){
+        return new String(bytes(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the raw bytes of the fixture, as they would come from the network.
+     * @param name the file name of the fixture.
+     * @return the raw bytes of the fixture.
+     */
+    public static byte[] bytes(String name){
+        try (InputStream stream = Fixtures.class.getResourceAsStream("/fixtures/" + name)){
+            if(stream == null)
+                throw new IllegalArgumentException("There is no fixture named " + name);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = stream.read(buffer)) != -1){
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the fixture into a document.
+     * @param name the file name of the fixture.
+     * @return the document.
+     */
+    public static Document document(String name){
+        return Jsoup.parse(html(name), BASE_URI);
+    }
+
+}
@@ -0,0 +1,211 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import tk.mihou.amatsuki.api.Amatsuki;
+import tk.mihou.amatsuki.api.enums.OrderBy;
+import tk.mihou.amatsuki.api.enums.Rankings;
+import tk.mihou.amatsuki.impl.cache.CacheKeys;
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class LoadTest {
+
+    /**
+     * Drives Amatsuki end to end (cache, connector, parsers) against the {@link StubServer}
+     * and reports the requests per second and the p50, p99 and p999 latency of every endpoint
+     * at each concurrency level and cache hit ratio.
+     *
+     * Run with: java -cp target/benchmarks.jar tk.mihou.amatsuki.benchmarks.LoadTest [key=value...]
+     *   concurrency=1,8,64  the amount of callers (and request threads) at once.
+     *   hit=0,0.5,0.9       the share of calls that ask for a key that is already cached.
+     *   seconds=5           how long every combination runs.
+     *   latency=20 jitter=10 the delay of the stub server (millis).
+     *   errors=0            the share of stub responses that fail with a 503.
+     *   transport=default   default (HttpURLConnection) or http2 (Java 11+).
+     *   padding=0           the size of the comment section below the story and profile pages (bytes).
+     *   streaming=false     stop reading story and profile pages once their parsed sections arrived.
+     *
+     * Misses on the ranking and homepage endpoints invalidate their key first, callers that
+     * miss on the same key at the same time are coalesced into one request like they would be in production.
+     */
+
+    private static final int HOT_KEYS = 100;
+
+    // Held on to, a logger that is only configured and never referenced can be collected along with its level.
+    private static final Logger logger = Logger.getLogger("Amatsuki");
+
+    private interface Call {
+        CompletableFuture<?> call(Amatsuki amatsuki, String base, boolean hit, int key, String miss);
+    }
+
+    private static final Map<String, Call> endpoints = new LinkedHashMap<>();
+
+    static {
+        endpoints.put("story", (amatsuki, base, hit, key, miss) ->
+                amatsuki.getStoryFromUrl(base + "/series/" + (hit ? "hot-" + key : miss) + "/load-test/"));
+        endpoints.put("user", (amatsuki, base, hit, key, miss) ->
+                amatsuki.getUserFromUrl(base + "/profile/" + (hit ? "hot-" + key : miss) + "/load-test/"));
+        endpoints.put("searchStory", (amatsuki, base, hit, key, miss) ->
+                amatsuki.searchStory(hit ? "hot-" + key : miss));
+        endpoints.put("ranking", (amatsuki, base, hit, key, miss) -> {
+            Rankings ranking = Rankings.values()[key % Rankings.values().length];
+            if(!hit){
+                CacheManager.invalidate(CacheKeys.ranking(base, ranking, OrderBy.DAILY));
+            }
+
+            return amatsuki.getCertainRankings(ranking, OrderBy.DAILY);
+        });
+        endpoints.put("latestUpdates", (amatsuki, base, hit, key, miss) -> {
+            if(!hit){
+                CacheManager.invalidate(CacheKeys.homepage(base));
+            }
+
+            return amatsuki.getLatestUpdates();
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for(String arg : args){
+            int split = arg.indexOf('=');
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        int[] concurrency = Arrays.stream(options.getOrDefault("concurrency", "1,8,64").split(",")).mapToInt(Integer::parseInt).toArray();
+        double[] hits = Arrays.stream(options.getOrDefault("hit", "0,0.5,0.9").split(",")).mapToDouble(Double::parseDouble).toArray();
+        long seconds = Long.parseLong(options.getOrDefault("seconds", "5"));
+        long latency = Long.parseLong(options.getOrDefault("latency", "20"));
+        long jitter = Long.parseLong(options.getOrDefault("jitter", "10"));
+        double errors = Double.parseDouble(options.getOrDefault("errors", "0"));
+        int padding = Integer.parseInt(options.getOrDefault("padding", "0"));
+
+        int maxConcurrency = Arrays.stream(concurrency).max().orElse(1);
+        try (StubServer server = StubServer.start(maxConcurrency).setLatency(latency, jitter, TimeUnit.MILLISECONDS).setErrorRate(errors).setPadding(padding)){
+            String base = server.getBaseUrl();
+            Amatsuki amatsuki = new Amatsuki().setBaseUrl(base).setCacheSize(1_000_000);
+            if(options.getOrDefault("transport", "default").equals("http2")){
+                amatsuki.useHttp2();
+            }
+
+            amatsuki.setStreamingExtraction(Boolean.parseBoolean(options.getOrDefault("streaming", "false")));
+
+            // Injected failures are logged by the connector, which would drown the report.
+            logger.setLevel(Level.OFF);
+
+            System.out.println("Stub server at " + base + " (latency " + latency + "ms, jitter " + jitter + "ms, errors " + errors + ")");
+            System.out.println(String.format("%-14s %11s %5s %10s %9s %9s %9s %8s %9s",
+                    "endpoint", "concurrency", "hit", "req/s", "p50 ms", "p99 ms", "p999 ms", "failed", "upstream"));
+
+            for(Map.Entry<String, Call> endpoint : endpoints.entrySet()){
+                for(int threads : concurrency){
+                    amatsuki.setThreadPool(threads);
+                    warm(amatsuki, base, endpoint.getValue());
+
+                    for(double hit : hits){
+                        long upstream = server.getRequests();
+                        Result result = run(amatsuki, base, endpoint.getValue(), threads, hit, seconds);
+                        System.out.println(String.format("%-14s %11d %5.2f %10.1f %9.2f %9.2f %9.2f %8d %9d",
+                                endpoint.getKey(), threads, hit, result.throughput(),
+                                result.percentile(0.5), result.percentile(0.99), result.percentile(0.999),
+                                result.failed, server.getRequests() - upstream));
+                    }
+                }
+            }
+
+            amatsuki.shutdown();
+        }
+    }
+
+    private static void warm(Amatsuki amatsuki, String base, Call call){
+        for(int key = 0; key < HOT_KEYS; key++){
+            call.call(amatsuki, base, true, key, null).join();
+        }
+    }
+
+    private static Result run(Amatsuki amatsuki, String base, Call call, int threads, double hit, long seconds) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Result>> futures = new ArrayList<>(threads);
+
+        for(int i = 0; i < threads; i++){
+            int thread = i;
+            futures.add(callers.submit(() -> {
+                Result result = new Result();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long sequence = 0;
+
+                start.await();
+                long begin = System.nanoTime();
+                while(System.nanoTime() < deadline){
+                    boolean cached = random.nextDouble() < hit;
+                    String miss = "miss-" + thread + "-" + sequence++;
+                    long sent = System.nanoTime();
+                    Object value = call.call(amatsuki, base, cached, random.nextInt(HOT_KEYS), miss).join();
+                    result.add(System.nanoTime() - sent, value == null);
+                }
+
+                result.elapsed = System.nanoTime() - begin;
+                return result;
+            }));
+        }
+
+        Result total = new Result();
+        try {
+            for(Future<Result> future : futures){
+                total.merge(future.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        return total;
+    }
+
+    private static class Result {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long failed;
+        private long elapsed;
+
+        void add(long latency, boolean failure){
+            if(count == latencies.length){
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+
+            latencies[count++] = latency;
+            if(failure)
+                failed++;
+        }
+
+        void merge(Result other){
+            if(count + other.count > latencies.length){
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            failed += other.failed;
+            elapsed = Math.max(elapsed, other.elapsed);
+        }
+
+        double throughput(){
+            return elapsed == 0 ? 0 : count / (elapsed / 1_000_000_000.0);
+        }
+
+        double percentile(double percentile){
+            if(count == 0)
+                return 0;
+
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)] / 1_000_000.0;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.*;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.impl.parser.StoryResultsExtractor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoryResultsBenchmark {
+
+    /**
+     * Compares the result box extraction before and after the single-pass
+     * extractor, per page of 20 results. The "parse" variants include building
+     * the document from the HTML, which is what a request actually pays for.
+     */
+
+    private String html;
+    private Document document;
+
+    @Setup
+    public void setup(){
+        html = Fixtures.html("search.html");
+        document = Fixtures.document("search.html");
+    }
+
+    @Benchmark
+    public List<StoryResults> legacy(){
+        return LegacyStoryResultsExtractor.extract(document);
+    }
+
+    @Benchmark
+    public List<StoryResults> extractor(){
+        return StoryResultsExtractor.extract(document);
+    }
+
+    @Benchmark
+    public List<StoryResults> parseLegacy(){
+        return LegacyStoryResultsExtractor.extract(Jsoup.parse(html, Fixtures.BASE_URI));
+    }
+
+    @Benchmark
+    public List<StoryResults> parseExtractor(){
+        return StoryResultsExtractor.extract(Jsoup.parse(html, Fixtures.BASE_URI));
+    }
+
+}
@@ -0,0 +1,270 @@
+package tk.mihou.amatsuki.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+public class StubServer implements Closeable {
+
+    /**
+     * A local stand-in for ScribbleHub that serves the fixture pages, every response
+     * can be delayed (latency plus a random jitter) and a share of them can fail with
+     * a 503, so the whole library can be load tested without touching the real site.
+     * Pages are gzipped for clients that accept it, like ScribbleHub does.
+     *
+     * The pages are picked by path the same way the connector requests them:
+     * /series/ (story), /profile/ (user), /series-ranking/, /latest-series/,
+     * /series-finder/, /?s= (search) and / (homepage).
+     */
+
+    static {
+        // Without this the JDK server waits on delayed acks, which adds ~40ms to every response.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private final byte[] storyFixture = Fixtures.bytes("story.html");
+    private final byte[] userFixture = Fixtures.bytes("user.html");
+    private final byte[] ranking = Fixtures.bytes("ranking.html");
+    private final byte[] search = Fixtures.bytes("search.html");
+    private final byte[] seriesFinder = Fixtures.bytes("series-finder.html");
+    private final byte[] homepage = Fixtures.bytes("homepage.html");
+
+    // The pages compressed once, for clients that accept gzip.
+    private final Map<byte[], byte[]> gzipped = new ConcurrentHashMap<>();
+
+    private volatile byte[] story = storyFixture;
+    private volatile byte[] user = userFixture;
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double errorRate;
+    private volatile boolean conditional;
+
+    private StubServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Amatsuki-StubServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a stub server on a free port of the loopback address.
+     * @param threads the amount of requests that can be served at the same time.
+     * @return the running server.
+     * @throws IOException if the server couldn't be started.
+     */
+    public static StubServer start(int threads) throws IOException {
+        return new StubServer(0, threads);
+    }
+
+    /**
+     * Delays every response, the delay is the latency plus a random jitter between 0 and the jitter.
+     * @param latency the fixed delay.
+     * @param jitter the most random delay that is added on top.
+     * @param unit the time unit of both delays.
+     * @return StubServer for chain calling.
+     */
+    public StubServer setLatency(long latency, long jitter, TimeUnit unit){
+        this.latency = unit.toNanos(latency);
+        this.jitter = unit.toNanos(jitter);
+        return this;
+    }
+
+    /**
+     * Fails a share of the requests with a 503.
+     * @param errorRate the share of requests that fail, between 0 and 1.
+     * @return StubServer for chain calling.
+     */
+    public StubServer setErrorRate(double errorRate){
+        if(errorRate < 0 || errorRate > 1)
+            throw new IllegalArgumentException("The error rate must be between 0 and 1.");
+
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Sends an ETag with every page and answers requests whose If-None-Match
+     * matches it with a 304, like a server that supports conditional requests.
+     * @param conditional should conditional requests be supported?
+     * @return StubServer for chain calling.
+     */
+    public StubServer setConditional(boolean conditional){
+        this.conditional = conditional;
+        return this;
+    }
+
+    /**
+     * Adds a comment section of about the given size to the end of the story and profile pages,
+     * the fixtures only hold what is parsed while the real pages carry chapters, comments and scripts below it.
+     * @param bytes the size of the comment section, 0 for none.
+     * @return StubServer for chain calling.
+     */
+    public StubServer setPadding(int bytes){
+        this.story = pad(storyFixture, bytes);
+        this.user = pad(userFixture, bytes);
+        return this;
+    }
+
+    /**
+     * Retrieves the base url of the server, to be given to Amatsuki#setBaseUrl.
+     * @return the base url, e.g. http://127.0.0.1:41234
+     */
+    public String getBaseUrl(){
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Retrieves the amount of requests the server has received.
+     * @return the amount of requests.
+     */
+    public long getRequests(){
+        return requests.get();
+    }
+
+    /**
+     * Retrieves the amount of requests that were failed on purpose.
+     * @return the amount of injected failures.
+     */
+    public long getFailures(){
+        return failures.get();
+    }
+
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            delay();
+
+            if(errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate){
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            byte[] body = page(exchange.getRequestURI().getPath(), exchange.getRequestURI().getRawQuery());
+            if(body == null){
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            if(conditional){
+                String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+                exchange.getResponseHeaders().set("ETag", etag);
+                if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+
+            String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if(encoding != null && encoding.contains("gzip")){
+                body = gzipped.computeIfAbsent(body, StubServer::gzip);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()){
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] page(String path, String query){
+        if(path.startsWith("/series-ranking/") || path.startsWith("/latest-series/"))
+            return ranking;
+
+        if(path.startsWith("/series-finder/"))
+            return seriesFinder;
+
+        if(path.startsWith("/series/"))
+            return story;
+
+        if(path.startsWith("/profile/"))
+            return user;
+
+        if(path.equals("/"))
+            return query != null && query.startsWith("s=") ? search : homepage;
+
+        return null;
+    }
+
+    private static byte[] pad(byte[] page, int bytes){
+        if(bytes <= 0)
+            return page;
+
+        String html = new String(page, StandardCharsets.UTF_8);
+        int end = html.lastIndexOf("</body>");
+        StringBuilder comments = new StringBuilder(bytes + 64).append("<div id=\"comments\" class=\"comments-area\">\n");
+        for(int i = 0; comments.length() < bytes; i++){
+            comments.append("<div class=\"comment\"><span class=\"comment-author\">reader_").append(i)
+                    .append("</span><p>Thanks for the chapter! Comment number ").append(i).append(" of the page.</p></div>\n");
+        }
+
+        comments.append("</div>\n");
+        return (html.substring(0, end) + comments + html.substring(end)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] body){
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream stream = new GZIPOutputStream(out)){
+            stream.write(body);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private void delay(){
+        long nanos = latency;
+        if(jitter > 0){
+            nanos += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+
+        if(nanos <= 0)
+            return;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
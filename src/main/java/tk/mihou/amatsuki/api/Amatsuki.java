@@ -1,27 +1,54 @@
 package tk.mihou.amatsuki.api;
 
+import tk.mihou.amatsuki.api.batch.BatchOptions;
+import tk.mihou.amatsuki.api.batch.BatchResult;
 import tk.mihou.amatsuki.api.connection.AmatsukiConnector;
-import tk.mihou.amatsuki.api.enums.AmatsukiNames;
+import tk.mihou.amatsuki.api.connection.AmatsukiTransport;
+import tk.mihou.amatsuki.api.enums.ArchiveMode;
+import tk.mihou.amatsuki.api.enums.Endpoint;
 import tk.mihou.amatsuki.api.enums.OrderBy;
 import tk.mihou.amatsuki.api.enums.Rankings;
+import tk.mihou.amatsuki.api.enums.StoryField;
 import tk.mihou.amatsuki.entities.ForumThread;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
 import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
 import tk.mihou.amatsuki.entities.story.Story;
 import tk.mihou.amatsuki.entities.story.lower.StoryResults;
 import tk.mihou.amatsuki.entities.user.User;
 import tk.mihou.amatsuki.entities.user.lower.UserResults;
+import tk.mihou.amatsuki.impl.archive.PageArchive;
+import tk.mihou.amatsuki.impl.batch.BatchLoader;
+import tk.mihou.amatsuki.impl.cache.CacheKeys;
 import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.RequestCoalescer;
+import tk.mihou.amatsuki.impl.cache.disk.DiskCache;
+import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
 import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
-
+import tk.mihou.amatsuki.impl.cache.stats.CacheStatistics;
+import tk.mihou.amatsuki.impl.cache.stats.CacheStatisticsSnapshot;
+import tk.mihou.amatsuki.impl.executor.AmatsukiExecutors;
+import tk.mihou.amatsuki.impl.refresh.RefreshScheduler;
+import tk.mihou.amatsuki.impl.transport.HttpClientTransport;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Amatsuki {
 
     private final AmatsukiConnector connector = new AmatsukiConnector();
     private final int defTimeout = 5000;
+    private volatile RefreshScheduler refresher;
 
     /**
      * Sets the user agent for the library, please do not abuse.
@@ -44,6 +71,53 @@ public class Amatsuki {
         return this;
     }
 
+    /**
+     * Sets the site that the rankings, searches and latest pages are requested from,
+     * default: https://www.scribblehub.com, useful for pointing Amatsuki at a local mirror or stub server.
+     * The pages of each site are cached apart, instances pointed at other sites never share them.
+     * @param baseUrl the scheme and host of the site, e.g. http://localhost:8080
+     * @return Amatsuki instance for chain calling.
+     */
+    public Amatsuki setBaseUrl(String baseUrl){
+        connector.setBaseUrl(baseUrl);
+        return this;
+    }
+
+    /**
+     * Sets how the pages are downloaded, e.g. to route them through a caching proxy
+     * or another HTTP client. The default transport keeps connections open and requests gzipped pages.
+     * @param transport the transport to use.
+     * @return Amatsuki instance for chain calling.
+     */
+    public Amatsuki setTransport(AmatsukiTransport transport){
+        connector.setTransport(transport);
+        return this;
+    }
+
+    /**
+     * Stops reading story and profile pages once every section that is parsed has arrived,
+     * which skips the chapters, comments and sidebars below them. Pages that turn out to be
+     * missing something are downloaded again in full. Custom transports may ignore this.
+     * @param streaming should story and profile pages be cut off?
+     * @return Amatsuki instance for chain calling.
+     */
+    public Amatsuki setStreamingExtraction(boolean streaming){
+        connector.setStreamingExtraction(streaming);
+        return this;
+    }
+
+    /**
+     * Downloads the pages over HTTP/2 without blocking a thread per request, this is
+     * only available on Java 11 and newer, Java 8 keeps the default transport.
+     *
+     * @return Amatsuki instance for chain calling.
+     * @throws UnsupportedOperationException if the JDK is older than Java 11.
+     */
+    public Amatsuki useHttp2(){
+        connector.setTransport(new HttpClientTransport());
+        return this;
+    }
+
     /**
      * Sets the status of the CacheManager whether to enable
      * or to disable the CacheManager (recommended enabled since
@@ -111,21 +185,251 @@ public class Amatsuki {
     }
 
     /**
-     * Searches and retrieves a list of users.
-     * @param query the keyword to query.
-     * @return User.
+     * Enables or disables stale-while-revalidate, when enabled, an entry that has
+     * expired is still served immediately while a single refresh is sent in the background.
+     * Once an entry is stale for longer than the maximum staleness, callers will wait for a
+     * fresh result again.
+     *
+     * By default, this is disabled.
+     *
+     * @param enabled should expired entries be served while they are refreshed?
+     * @param maxStaleness how long past its expiry an entry can still be served.
+     * @param unit the time unit of the maximum staleness.
+     * @return Amatsuki
      */
-    public CompletableFuture<List<UserResults>> searchUser(String query) {
-        if(CacheManager.search.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.USER_SEARCH.getFormat(), query))){
-                List<UserResults> result = (List<UserResults>) CacheManager.getList(String.format(AmatsukiNames.USER_SEARCH.getFormat(), query));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
+    public Amatsuki setStaleWhileRevalidate(boolean enabled, long maxStaleness, TimeUnit unit){
+        CacheManager.setStaleWhileRevalidate(enabled, maxStaleness, unit);
+        return this;
+    }
+
+    /**
+     * Sets how long expired entries are kept so that their page can be revalidated, once such an
+     * entry is requested again the request is conditional (ETag, Last-Modified) and an unchanged
+     * page (a 304 or the same body) renews the entry without parsing the page again.
+     *
+     * By default, expired entries are kept for 24 hours, 0 disables revalidation.
+     *
+     * @param window how long past its expiry an entry is kept.
+     * @param unit the time unit of the window.
+     * @return Amatsuki
+     */
+    public Amatsuki setRevalidationWindow(long window, TimeUnit unit){
+        CacheManager.setRevalidationWindow(window, unit);
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of entries the cache can hold, once the
+     * cache goes over this limit, an expired entry or the least recently
+     * used of a few sampled entries is removed for every entry over it.
+     *
+     * The default value is 10,000 entries.
+     *
+     * @param size the maximum amount of entries.
+     * @return Amatsuki
+     */
+    public Amatsuki setCacheSize(int size){
+        CacheManager.setMaximumSize(size);
+        return this;
+    }
+
+    /**
+     * Adds a disk cache behind the memory cache, stories, users, rankings and
+     * latest updates are written to the directory in the background and read back
+     * once they are missing from memory, which keeps the cache warm between restarts.
+     * The log is indexed in the background, entries on disk are only read once that is done.
+     *
+     * @param directory the directory to store the cache in.
+     * @return Amatsuki
+     * @throws IOException if the directory or the cache log couldn't be opened.
+     */
+    public Amatsuki setDiskCache(Path directory) throws IOException {
+        CacheManager.setDiskCache(DiskCache.open(directory));
+        return this;
+    }
+
+    /**
+     * Writes the pending entries and closes the disk cache, the memory cache keeps working.
+     * @return Amatsuki
+     */
+    public Amatsuki disableDiskCache(){
+        CacheManager.setDiskCache(null);
+        return this;
+    }
+
+    /**
+     * Records every page that is downloaded into an archive inside the directory,
+     * pages are compressed and only stored once no matter how many times they were fetched.
+     *
+     * @param directory the directory of the archive.
+     * @return Amatsuki
+     * @throws IOException if the archive couldn't be opened.
+     */
+    public Amatsuki record(Path directory) throws IOException {
+        connector.setArchive(PageArchive.open(directory), ArchiveMode.RECORD);
+        return this;
+    }
+
+    /**
+     * Replays the pages of an archive that was recorded through {@link #record(Path)}
+     * instead of sending any request, pages that were never recorded fail like a request would.
+     *
+     * @param directory the directory of the archive.
+     * @return Amatsuki
+     * @throws IOException if the archive couldn't be opened.
+     */
+    public Amatsuki replay(Path directory) throws IOException {
+        connector.setArchive(PageArchive.open(directory), ArchiveMode.REPLAY);
+        return this;
+    }
+
+    /**
+     * Stops recording or replaying, requests go through the network again.
+     * @return Amatsuki
+     */
+    public Amatsuki disableArchive(){
+        connector.setArchive(null, null);
+        return this;
+    }
+
+    /**
+     * Retrieves the hits, misses, load times, size and evictions of the cache
+     * at this moment, broken down by cache type and by endpoint.
+     * @return the cache statistics.
+     */
+    public CacheStatisticsSnapshot getCacheStatistics(){
+        return CacheManager.getStatistics();
+    }
+
+    /**
+     * Sets the executor that all the requests will be executed on, the executor
+     * is owned by the caller which means Amatsuki will never shut it down.
+     *
+     * By default, all instances share a bounded pool of daemon threads.
+     *
+     * @param executor the executor to use.
+     * @return Amatsuki.
+     */
+    public Amatsuki setExecutor(ExecutorService executor){
+        connector.setExecutor(executor, false);
+        return this;
+    }
+
+    /**
+     * Gives this instance its own bounded pool of threads, this pool
+     * will be shut down once {@link #shutdown()} is called.
+     *
+     * @param threads the maximum amount of requests that can run at the same time.
+     * @return Amatsuki.
+     */
+    public Amatsuki setThreadPool(int threads){
+        connector.setExecutor(AmatsukiExecutors.newBoundedPool(threads), true);
+        return this;
+    }
+
+    /**
+     * Executes every request on its own virtual thread, this is only
+     * available on JDKs that support virtual threads (21+).
+     *
+     * @return Amatsuki.
+     * @throws UnsupportedOperationException if the JDK doesn't support virtual threads.
+     */
+    public Amatsuki useVirtualThreads(){
+        connector.setExecutor(AmatsukiExecutors.newVirtualThreadPool(), true);
+        return this;
+    }
+
+    /**
+     * Shuts down the executor of this instance if it was created by Amatsuki
+     * (through {@link #setThreadPool(int)} or {@link #useVirtualThreads()}), requests
+     * that are already queued will still complete. Executors given through
+     * {@link #setExecutor(ExecutorService)} are left untouched. The archive, if any, is closed.
+     */
+    public void shutdown(){
+        RefreshScheduler current = refresher;
+        if(current != null){
+            current.shutdown();
+            refresher = null;
+        }
+
+        connector.setArchive(null, null);
+        connector.shutdown();
+    }
+
+    /**
+     * Keeps the rankings and latest lists warm by fetching them again shortly
+     * before they expire, the new results replace the old ones in the cache at once.
+     *
+     * If no keys were registered through {@link #registerRefresh(Rankings, OrderBy)},
+     * every combination of {@link Rankings} and {@link OrderBy} is registered together
+     * with the latest series and the homepage.
+     *
+     * @param lead how long before the expiry to refresh.
+     * @param unit the time unit of the lead.
+     * @return Amatsuki.
+     */
+    public Amatsuki enableRefreshAhead(long lead, TimeUnit unit){
+        RefreshScheduler scheduler = refresher();
+        if(scheduler.isEmpty()){
+            for(Rankings ranking : Rankings.values()){
+                for(OrderBy order : OrderBy.values()){
+                    registerRefresh(ranking, order);
                 }
             }
+
+            scheduler.register(CacheKeys.latestSeries(connector.getBaseUrl()), Endpoint.LATEST_SERIES.getType(), () -> connector.getLatestSeries(defTimeout));
+            scheduler.register(CacheKeys.homepage(connector.getBaseUrl()), Endpoint.HOMEPAGE.getType(), () -> connector.getHomepage(defTimeout));
         }
 
-        return connector.searchUser(query, defTimeout);
+        // Two seconds between each refresh to avoid bursts against ScribbleHub.
+        scheduler.start(unit.toMillis(lead), 2000, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Registers a ranking to be kept warm by the refresh-ahead scheduler.
+     * @param ranking the ranking.
+     * @param order the time order of the ranking.
+     * @return Amatsuki.
+     */
+    public Amatsuki registerRefresh(Rankings ranking, OrderBy order){
+        refresher().register(CacheKeys.ranking(connector.getBaseUrl(), ranking, order), Endpoint.RANKINGS.getType(),
+                () -> connector.getRanking(ranking, order, defTimeout));
+        return this;
+    }
+
+    /**
+     * Stops the refresh-ahead scheduler, the registered keys are kept for when it is enabled again.
+     * @return Amatsuki.
+     */
+    public Amatsuki disableRefreshAhead(){
+        RefreshScheduler current = refresher;
+        if(current != null){
+            current.stop();
+        }
+
+        return this;
+    }
+
+    private RefreshScheduler refresher(){
+        if(refresher == null){
+            synchronized (this){
+                if(refresher == null){
+                    refresher = new RefreshScheduler();
+                }
+            }
+        }
+
+        return refresher;
+    }
+
+    /**
+     * Searches and retrieves a list of users.
+     * @param query the keyword to query.
+     * @return User.
+     */
+    public CompletableFuture<List<UserResults>> searchUser(String query) {
+        return cached(CacheKeys.userSearch(connector.getBaseUrl(), query), Endpoint.USER_SEARCH, List.class, () -> connector.searchUser(query, defTimeout));
     }
 
     /**
@@ -133,7 +437,7 @@ public class Amatsuki {
      * @return the latest topics from the frontpage.
      */
     public CompletableFuture<List<ForumThread>> getLatestTopics(){
-        return connector.getLatestTopics(defTimeout);
+        return homepage(Endpoint.LATEST_TOPICS, defTimeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestTopics());
     }
 
     /**
@@ -142,7 +446,28 @@ public class Amatsuki {
      * @return the latest topics from the frontpage.
      */
     public CompletableFuture<List<ForumThread>> getLatestTopics(int timeout){
-        return connector.getLatestTopics(timeout);
+        return homepage(Endpoint.LATEST_TOPICS, timeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestTopics());
+    }
+
+    /**
+     * Creates a series finder that searches through this instance, sharing its
+     * connector, executor and cache.
+     * @return a new SearchFinder.
+     */
+    public SearchFinder searchFinder(){
+        return new SearchFinder(this);
+    }
+
+    /**
+     * Searches the series finder with the filters of a {@link SearchFinder}, searches
+     * with the same filters are served from the cache.
+     * @param filters the query of the series finder, e.g. &gi=1,2&mgi=or&cp=all&sort=pageviews&order=desc
+     * @param timeout the time limit. (millis)
+     * @return List<StoryResults>
+     */
+    CompletableFuture<List<StoryResults>> seriesFinder(String filters, int timeout){
+        String url = connector.getBaseUrl() + "/series-finder/?sf=1" + filters;
+        return cached(CacheKeys.seriesFinder(url), Endpoint.SERIES_FINDER, List.class, () -> connector.seriesFinderSearch(url, timeout));
     }
 
     /**
@@ -151,16 +476,7 @@ public class Amatsuki {
      * @return Story.
      */
     public CompletableFuture<List<StoryResults>> searchStory(String query) {
-        if(CacheManager.search.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.STORY_SEARCH.getFormat(), query))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.STORY_SEARCH.getFormat(), query));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.searchStory(query, defTimeout);
+        return cached(CacheKeys.storySearch(connector.getBaseUrl(), query), Endpoint.STORY_SEARCH, List.class, () -> connector.searchStory(query, defTimeout));
     }
 
     /**
@@ -168,16 +484,7 @@ public class Amatsuki {
      * @return List of LatestUpdatesResults
      */
     public CompletableFuture<List<LatestUpdatesResult>> getLatestUpdates(){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(AmatsukiNames.LATEST_UPDATES.getFormat())){
-                List<LatestUpdatesResult> result = (List<LatestUpdatesResult>) CacheManager.getList(AmatsukiNames.LATEST_UPDATES.getFormat());
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getLatestUpdates(defTimeout);
+        return homepage(Endpoint.LATEST_UPDATES, defTimeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestUpdates());
     }
 
     /**
@@ -186,16 +493,39 @@ public class Amatsuki {
      * @return List of LatestUpdatesResults
      */
     public CompletableFuture<List<LatestUpdatesResult>> getLatestUpdates(int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(AmatsukiNames.LATEST_UPDATES.getFormat())){
-                List<LatestUpdatesResult> result = (List<LatestUpdatesResult>) CacheManager.getList(AmatsukiNames.LATEST_UPDATES.getFormat());
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
+        return homepage(Endpoint.LATEST_UPDATES, timeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestUpdates());
+    }
 
-        return connector.getLatestUpdates(timeout);
+    /**
+     * Retrieves the latest topics and latest updates of the ScribbleHub frontpage together,
+     * the frontpage is downloaded and parsed once and cached as a single snapshot that
+     * {@link #getLatestTopics()} and {@link #getLatestUpdates()} are also served from.
+     * @return the frontpage.
+     */
+    public CompletableFuture<HomepageSnapshot> getHomepage(){
+        return homepage(Endpoint.HOMEPAGE, defTimeout);
+    }
+
+    /**
+     * Retrieves the latest topics and latest updates of the ScribbleHub frontpage together.
+     * @param timeout The time limit (millis).
+     * @return the frontpage.
+     */
+    public CompletableFuture<HomepageSnapshot> getHomepage(int timeout){
+        return homepage(Endpoint.HOMEPAGE, timeout);
+    }
+
+    /**
+     * Serves the homepage snapshot from the cache or downloads it, the hits and misses
+     * are recorded against the endpoint that asked for it while the downloads are
+     * recorded against {@link Endpoint#HOMEPAGE} since they are shared.
+     *
+     * @param endpoint the endpoint asking for the snapshot.
+     * @param timeout the time limit (millis).
+     * @return the snapshot, null if it couldn't be downloaded.
+     */
+    private CompletableFuture<HomepageSnapshot> homepage(Endpoint endpoint, int timeout){
+        return cached(CacheKeys.homepage(connector.getBaseUrl()), endpoint, HomepageSnapshot.class, () -> connector.getHomepage(timeout));
     }
 
     /**
@@ -203,16 +533,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getLatestSeries(){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(AmatsukiNames.LATEST_SERIES.getFormat())){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(AmatsukiNames.LATEST_SERIES.getFormat());
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getLatestSeries(defTimeout);
+        return cached(CacheKeys.latestSeries(connector.getBaseUrl()), Endpoint.LATEST_SERIES, List.class, () -> connector.getLatestSeries(defTimeout));
     }
 
     /**
@@ -221,16 +542,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getLatestSeries(int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(AmatsukiNames.LATEST_SERIES.getFormat())){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(AmatsukiNames.LATEST_SERIES.getFormat());
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getLatestSeries(timeout);
+        return cached(CacheKeys.latestSeries(connector.getBaseUrl()), Endpoint.LATEST_SERIES, List.class, () -> connector.getLatestSeries(timeout));
     }
 
     /**
@@ -238,16 +550,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getTrending(){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), OrderBy.DAILY.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), OrderBy.DAILY.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(Rankings.RISING, OrderBy.DAILY, defTimeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), Rankings.RISING, OrderBy.DAILY), Endpoint.RANKINGS, List.class, () -> connector.getRanking(Rankings.RISING, OrderBy.DAILY, defTimeout));
     }
 
     /**
@@ -256,16 +559,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getTrending(OrderBy order){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), order.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), order.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(Rankings.RISING, order, defTimeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), Rankings.RISING, order), Endpoint.RANKINGS, List.class, () -> connector.getRanking(Rankings.RISING, order, defTimeout));
     }
 
 
@@ -276,16 +570,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getTrending(OrderBy order, int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), order.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), order.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(Rankings.RISING, order, timeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), Rankings.RISING, order), Endpoint.RANKINGS, List.class, () -> connector.getRanking(Rankings.RISING, order, timeout));
     }
 
     /**
@@ -294,16 +579,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getTrending(int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), OrderBy.DAILY.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), Rankings.RISING.getIdentifier(), OrderBy.DAILY.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(Rankings.RISING, OrderBy.DAILY, timeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), Rankings.RISING, OrderBy.DAILY), Endpoint.RANKINGS, List.class, () -> connector.getRanking(Rankings.RISING, OrderBy.DAILY, timeout));
     }
 
     /**
@@ -311,16 +587,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getCertainRankings(Rankings ranking){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), OrderBy.DAILY.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), OrderBy.DAILY.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(ranking, OrderBy.DAILY, defTimeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), ranking, OrderBy.DAILY), Endpoint.RANKINGS, List.class, () -> connector.getRanking(ranking, OrderBy.DAILY, defTimeout));
     }
 
     /**
@@ -329,16 +596,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getCertainRankings(Rankings ranking, OrderBy order){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(ranking, order, defTimeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), ranking, order), Endpoint.RANKINGS, List.class, () -> connector.getRanking(ranking, order, defTimeout));
     }
 
     /**
@@ -347,16 +605,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getCertainRankings(Rankings ranking, int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), OrderBy.DAILY.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), OrderBy.DAILY.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(ranking, OrderBy.DAILY, timeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), ranking, OrderBy.DAILY), Endpoint.RANKINGS, List.class, () -> connector.getRanking(ranking, OrderBy.DAILY, timeout));
     }
 
     /**
@@ -366,16 +615,7 @@ public class Amatsuki {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> getCertainRankings(Rankings ranking, OrderBy order, int timeout){
-        if(CacheManager.rankings.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation()))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation()));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getRanking(ranking, order, timeout);
+        return cached(CacheKeys.ranking(connector.getBaseUrl(), ranking, order), Endpoint.RANKINGS, List.class, () -> connector.getRanking(ranking, order, timeout));
     }
 
     /**
@@ -384,16 +624,7 @@ public class Amatsuki {
      * @return Story.
      */
     public CompletableFuture<Story> getStoryFromUrl(String url) {
-        if(CacheManager.enabled.get()){
-            if(CacheManager.isCached(url)){
-                    Story result = CacheManager.getCache(Story.class, url);
-                    if(result != null) {
-                        return CompletableFuture.supplyAsync(() -> result);
-                    }
-            }
-        }
-
-        return connector.getStoryByUrl(url, defTimeout);
+        return cached(url, Endpoint.STORY, Story.class, () -> connector.getStoryByUrl(url, defTimeout));
     }
 
     /**
@@ -402,16 +633,7 @@ public class Amatsuki {
      * @return User.
      */
     public CompletableFuture<User> getUserFromUrl(String url) {
-        if(CacheManager.enabled.get()){
-            if(CacheManager.isCached(url)){
-                User result = CacheManager.getCache(User.class, url);
-                if(result != null){
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.getUserFromUrl(url, defTimeout);
+        return cached(url, Endpoint.USER, User.class, () -> connector.getUserFromUrl(url, defTimeout));
     }
 
     /**
@@ -421,16 +643,7 @@ public class Amatsuki {
      * @return Story.
      */
     public CompletableFuture<List<StoryResults>> searchStory(String query, int timeout) {
-        if(CacheManager.search.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.STORY_SEARCH.getFormat(), query))){
-                List<StoryResults> result = (List<StoryResults>) CacheManager.getList(String.format(AmatsukiNames.STORY_SEARCH.getFormat(), query));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.searchStory(query, timeout);
+        return cached(CacheKeys.storySearch(connector.getBaseUrl(), query), Endpoint.STORY_SEARCH, List.class, () -> connector.searchStory(query, timeout));
     }
 
     /**
@@ -440,16 +653,7 @@ public class Amatsuki {
      * @return User
      */
     public CompletableFuture<List<UserResults>> searchUser(String query, int timeout) {
-        if(CacheManager.search.get()){
-            if(CacheManager.isCached(String.format(AmatsukiNames.USER_SEARCH.getFormat(), query))){
-                List<UserResults> result = (List<UserResults>) CacheManager.getList(String.format(AmatsukiNames.USER_SEARCH.getFormat(), query));
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
-        }
-
-        return connector.searchUser(query, timeout);
+        return cached(CacheKeys.userSearch(connector.getBaseUrl(), query), Endpoint.USER_SEARCH, List.class, () -> connector.searchUser(query, timeout));
     }
 
     /**
@@ -459,16 +663,68 @@ public class Amatsuki {
      * @return Story.
      */
     public CompletableFuture<Story> getStoryFromUrl(String url, int timeout) {
-        if(CacheManager.enabled.get()){
-            if(CacheManager.isCached(url)){
-                Story result = CacheManager.getCache(Story.class, url);
-                if(result != null) {
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
+        return cached(url, Endpoint.STORY, Story.class, () -> connector.getStoryByUrl(url, timeout));
+    }
+
+    /**
+     * Gets only some fields of a story using the URL, the other fields are left empty and
+     * the page is only read as far as it has to be (see {@link #setStreamingExtraction(boolean)}).
+     * @param url the url to collect from.
+     * @param fields the fields that are needed, e.g. EnumSet.of(StoryField.TITLE, StoryField.VIEWS).
+     * @return Story.
+     */
+    public CompletableFuture<Story> getStoryFromUrl(String url, Set<StoryField> fields) {
+        return getStoryFromUrl(url, fields, defTimeout);
+    }
+
+    /**
+     * Gets only some fields of a story using the URL with a specified timeout (millis).
+     * A whole story that is already cached is served for any fields, so is a partial story
+     * that holds every field. Otherwise the story is fetched with the fields that are needed
+     * and the fields of the cached partial story, which it replaces.
+     * @param url the url to collect from.
+     * @param fields the fields that are needed.
+     * @param timeout the time limit. (millis)
+     * @return Story.
+     */
+    public CompletableFuture<Story> getStoryFromUrl(String url, Set<StoryField> fields, int timeout) {
+        if(fields.containsAll(StoryField.ALL))
+            return getStoryFromUrl(url, timeout);
+
+        if(!CacheManager.isEnabled(Endpoint.STORY.getType()))
+            return connector.getStoryByUrl(url, fields, timeout);
+
+        CacheEntity<?> whole = CacheManager.getEntity(url);
+        if(whole != null && !whole.isInvalid() && whole.value() instanceof Story){
+            CacheStatistics.recordHit(Endpoint.STORY);
+            return CompletableFuture.completedFuture((Story) whole.value());
+        }
+
+        CacheEntity<?> partial = CacheManager.getEntity(CacheKeys.story(url, fields));
+        if(partial == null || !(partial.value() instanceof Story)){
+            CacheStatistics.recordMiss(Endpoint.STORY);
+            return connector.getStoryByUrl(url, fields, timeout);
         }
 
-        return connector.getStoryByUrl(url, timeout);
+        Story story = (Story) partial.value();
+        if(!story.hasFields(fields)){
+            // Keep the fields that were already cached so that the new story can still answer for them.
+            Set<StoryField> union = EnumSet.copyOf(story.getFields());
+            union.addAll(fields);
+
+            CacheStatistics.recordMiss(Endpoint.STORY);
+            return connector.getStoryByUrl(url, union, timeout);
+        }
+
+        // Stale, refresh in the background while we serve the old value.
+        if(partial.isInvalid()){
+            CacheStatistics.recordStaleHit(Endpoint.STORY);
+            connector.getStoryByUrl(url, story.getFields(), timeout);
+        } else {
+            CacheStatistics.recordHit(Endpoint.STORY);
+        }
+
+        return CompletableFuture.completedFuture(story);
     }
 
     /**
@@ -478,15 +734,207 @@ public class Amatsuki {
      * @return User.
      */
     public CompletableFuture<User> getUserFromUrl(String url, int timeout) {
-        if(CacheManager.enabled.get()){
-            if(CacheManager.isCached(url)){
-                User result = CacheManager.getCache(User.class, url);
-                if(result != null){
-                    return CompletableFuture.supplyAsync(() -> result);
-                }
-            }
+        return cached(url, Endpoint.USER, User.class, () -> connector.getUserFromUrl(url, timeout));
+    }
+
+    /**
+     * Fetches many stories at once, duplicates are only fetched once, cached stories are served
+     * without a request and the rest are fetched 4 at a time and 5 per second at most.
+     * @param urls the urls of the stories.
+     * @return every result keyed by url (in the order given), failed stories carry their error.
+     */
+    public CompletableFuture<Map<String, BatchResult<Story>>> getStoriesFromUrls(Collection<String> urls) {
+        return getStoriesFromUrls(urls, new BatchOptions(), null);
+    }
+
+    /**
+     * Fetches many stories at once, duplicates are only fetched once and cached stories are served
+     * without a request, the rest are fetched within the concurrency and rate of the options.
+     * @param urls the urls of the stories.
+     * @param options the concurrency, rate and timeout of the batch.
+     * @param listener called with every result as soon as it is ready, can be null.
+     * @return every result keyed by url (in the order given), failed stories carry their error.
+     */
+    public CompletableFuture<Map<String, BatchResult<Story>>> getStoriesFromUrls(Collection<String> urls, BatchOptions options, Consumer<BatchResult<Story>> listener) {
+        return BatchLoader.load(urls, options, listener,
+                url -> this.<Story>peek(url, Endpoint.STORY, Story.class, true).orElse(null),
+                url -> connector.requestStory(url, options.getTimeout()));
+    }
+
+    /**
+     * Fetches many users at once, duplicates are only fetched once, cached users are served
+     * without a request and the rest are fetched 4 at a time and 5 per second at most.
+     * @param urls the urls of the users.
+     * @return every result keyed by url (in the order given), failed users carry their error.
+     */
+    public CompletableFuture<Map<String, BatchResult<User>>> getUsersFromUrls(Collection<String> urls) {
+        return getUsersFromUrls(urls, new BatchOptions(), null);
+    }
+
+    /**
+     * Fetches many users at once, duplicates are only fetched once and cached users are served
+     * without a request, the rest are fetched within the concurrency and rate of the options.
+     * @param urls the urls of the users.
+     * @param options the concurrency, rate and timeout of the batch.
+     * @param listener called with every result as soon as it is ready, can be null.
+     * @return every result keyed by url (in the order given), failed users carry their error.
+     */
+    public CompletableFuture<Map<String, BatchResult<User>>> getUsersFromUrls(Collection<String> urls, BatchOptions options, Consumer<BatchResult<User>> listener) {
+        return BatchLoader.load(urls, options, listener,
+                url -> this.<User>peek(url, Endpoint.USER, User.class, true).orElse(null),
+                url -> connector.requestUser(url, options.getTimeout()));
+    }
+
+    /**
+     * Retrieves the story from the cache without ever sending a request,
+     * this only reads the memory cache so it never blocks and can be used from latency-sensitive handlers.
+     *
+     * @param url the url of the story.
+     * @return the cached story, empty if it isn't cached.
+     */
+    public Optional<Story> peekStory(String url){
+        return peek(url, Endpoint.STORY, Story.class);
+    }
+
+    /**
+     * Retrieves the user from the cache without ever sending a request,
+     * this only reads the memory cache so it never blocks and can be used from latency-sensitive handlers.
+     *
+     * @param url the url of the user.
+     * @return the cached user, empty if it isn't cached.
+     */
+    public Optional<User> peekUser(String url){
+        return peek(url, Endpoint.USER, User.class);
+    }
+
+    /**
+     * Retrieves the ranking from the cache without ever sending a request,
+     * this only reads the memory cache so it never blocks and can be used from latency-sensitive handlers.
+     *
+     * @param ranking the ranking.
+     * @param order the time order of the ranking.
+     * @return the cached ranking, empty if it isn't cached.
+     */
+    public Optional<List<StoryResults>> peekRanking(Rankings ranking, OrderBy order){
+        return peek(CacheKeys.ranking(connector.getBaseUrl(), ranking, order), Endpoint.RANKINGS, List.class);
+    }
+
+    /**
+     * Retrieves the latest series from the cache without ever sending a request.
+     * @return the cached latest series, empty if it isn't cached.
+     */
+    public Optional<List<StoryResults>> peekLatestSeries(){
+        return peek(CacheKeys.latestSeries(connector.getBaseUrl()), Endpoint.LATEST_SERIES, List.class);
+    }
+
+    /**
+     * Retrieves the latest updates from the cache without ever sending a request.
+     * @return the cached latest updates, empty if it isn't cached.
+     */
+    public Optional<List<LatestUpdatesResult>> peekLatestUpdates(){
+        return this.<HomepageSnapshot>peek(CacheKeys.homepage(connector.getBaseUrl()), Endpoint.LATEST_UPDATES, HomepageSnapshot.class)
+                .map(HomepageSnapshot::getLatestUpdates);
+    }
+
+    /**
+     * Retrieves the latest topics from the cache without ever sending a request.
+     * @return the cached latest topics, empty if they aren't cached.
+     */
+    public Optional<List<ForumThread>> peekLatestTopics(){
+        return this.<HomepageSnapshot>peek(CacheKeys.homepage(connector.getBaseUrl()), Endpoint.LATEST_TOPICS, HomepageSnapshot.class)
+                .map(HomepageSnapshot::getLatestTopics);
+    }
+
+    /**
+     * Serves the key from the cache if possible, otherwise loads it through the loader.
+     * Hits are returned as already completed futures so they never go through an executor.
+     * When stale-while-revalidate is enabled, expired entries are still served while
+     * a single refresh is sent in the background.
+     *
+     * @param key the cache key.
+     * @param endpoint the endpoint of the key.
+     * @param expected the expected type of the cached value.
+     * @param loader the loader to use when the key isn't cached.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> cached(String key, Endpoint endpoint, Class<?> expected, Supplier<CompletableFuture<T>> loader){
+        CacheEntity<?> entity = entity(key, endpoint, expected, true);
+        if(entity == null)
+            return loader.get();
+
+        // Stale, refresh in the background while we serve the old value.
+        if(entity.isInvalid() && !RequestCoalescer.isInflight(key)){
+            loader.get();
+        }
+
+        // The expected type was checked when the entity was looked up.
+        @SuppressWarnings("unchecked")
+        T value = (T) entity.value();
+        return CompletableFuture.completedFuture(value);
+    }
+
+    /**
+     * Retrieves the value of the key from the memory cache without loading it,
+     * stale values are served the same way as {@link #cached(String, Endpoint, Class, Supplier)}
+     * but are never refreshed. The disk cache isn't read since this must never block.
+     *
+     * @param key the cache key.
+     * @param endpoint the endpoint of the key.
+     * @param expected the expected type of the cached value.
+     * @param <T> the type of the result.
+     * @return the cached value, empty if there is none.
+     */
+    private <T> Optional<T> peek(String key, Endpoint endpoint, Class<?> expected){
+        return peek(key, endpoint, expected, false);
+    }
+
+    /**
+     * Same as {@link #peek(String, Endpoint, Class)}, except that the disk cache can be read,
+     * this is used where the caller is about to send a request anyway (e.g. batches).
+     *
+     * @param key the cache key.
+     * @param endpoint the endpoint of the key.
+     * @param expected the expected type of the cached value.
+     * @param disk should the disk cache be read when the value isn't in memory?
+     * @param <T> the type of the result.
+     * @return the cached value, empty if there is none.
+     */
+    private <T> Optional<T> peek(String key, Endpoint endpoint, Class<?> expected, boolean disk){
+        CacheEntity<?> entity = entity(key, endpoint, expected, disk);
+        if(entity == null)
+            return Optional.empty();
+
+        @SuppressWarnings("unchecked")
+        T value = (T) entity.value();
+        return Optional.of(value);
+    }
+
+    /**
+     * Looks up the entity of the key once and records whether it was a hit or a miss.
+     *
+     * @param key the cache key.
+     * @param endpoint the endpoint of the key.
+     * @param expected the expected type of the cached value.
+     * @param disk should the disk cache be read when the entity isn't in memory?
+     * @return the servable entity, null if there is none or the cache is disabled.
+     */
+    private CacheEntity<?> entity(String key, Endpoint endpoint, Class<?> expected, boolean disk){
+        if(!CacheManager.isEnabled(endpoint.getType()))
+            return null;
+
+        CacheEntity<?> entity = CacheManager.getEntity(key, disk);
+        if(entity == null || !expected.isInstance(entity.value())){
+            CacheStatistics.recordMiss(endpoint);
+            return null;
+        }
+
+        if(entity.isInvalid()){
+            CacheStatistics.recordStaleHit(endpoint);
+        } else {
+            CacheStatistics.recordHit(endpoint);
         }
 
-        return connector.getUserFromUrl(url, timeout);
+        return entity;
     }
 }
@@ -1,16 +1,19 @@
 package tk.mihou.amatsuki.api;
 
-import tk.mihou.amatsuki.api.connection.AmatsukiConnector;
 import tk.mihou.amatsuki.api.enums.*;
 import tk.mihou.amatsuki.entities.story.lower.StoryResults;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 public class SearchFinder {
 
+        // Finders that aren't created from an instance share this one, instead of a connector per search.
+        private static final Amatsuki standalone = new Amatsuki();
+
+        // The instance whose connector, executor and cache the searches go through.
+        private final Amatsuki amatsuki;
+
         // The List of Genres and Content Warnings to use.
         private final Set<Genre> includedGenres = new HashSet<>();
         private final Set<ContentWarning> includedContentWarnings = new HashSet<>();
@@ -29,6 +32,22 @@ public class SearchFinder {
         private StoryStatus storyStatus = StoryStatus.ALL;
         private ExclusionMethod contentWarningMethod = ExclusionMethod.OR;
 
+        /**
+         * Creates a finder that searches through a default Amatsuki instance,
+         * use {@link Amatsuki#searchFinder()} to search with the settings and cache of your own instance.
+         */
+        public SearchFinder(){
+            this(standalone);
+        }
+
+        /**
+         * Creates a finder that searches through the instance.
+         * @param amatsuki the instance to search through.
+         */
+        SearchFinder(Amatsuki amatsuki){
+            this.amatsuki = amatsuki;
+        }
+
         /**
          * Which method to sort the stories.
          * @param sorting the sorting of the stories.
@@ -183,12 +202,17 @@ public class SearchFinder {
             return this;
         }
 
+        /**
+         * Searches for the stories that match the filters, a search with the same filters
+         * as an earlier one is served from the cache.
+         * @return the stories.
+         */
         public CompletableFuture<List<StoryResults>> build(){
 
             // URL Building...
 
-            // The point of origin of the series finder.
-            StringBuilder url = new StringBuilder("https://scribblehub.com/series-finder/?sf=1");
+            // The filters of the series finder, the ids are sorted so the same filters always make the same url (and cache key).
+            StringBuilder url = new StringBuilder();
 
             // Adds all included genres if it isn't empty.
             if(!includedGenres.isEmpty()){
@@ -217,18 +241,22 @@ public class SearchFinder {
             }
 
             url.append("&cp=").append(storyStatus.getValue()).append("&sort=").append(sorting.getValue()).append("&order=").append(order ? "asc" : "desc");
-            return new AmatsukiConnector().seriesFinderSearch(url.toString(), timeout);
+            return amatsuki.seriesFinder(url.toString(), timeout);
         }
 
         private String genreTransform(Set<Genre> genres){
-            StringBuilder str = new StringBuilder();
-            genres.forEach(genre -> str.append(str.length() < 1 ? genre.getId() : ","+genre.getId()));
-            return str.toString();
+            return join(genres.stream().mapToInt(Genre::getId).sorted().toArray());
         }
 
         private String contentTransform(Set<ContentWarning> warnings){
+            return join(warnings.stream().mapToInt(ContentWarning::getCtid).sorted().toArray());
+        }
+
+        private String join(int[] ids){
             StringBuilder str = new StringBuilder();
-            warnings.forEach(warning -> str.append(str.length() < 1 ? warning.getCtid() : ","+warning.getCtid()));
+            for(int id : ids){
+                str.append(str.length() < 1 ? id : "," + id);
+            }
             return str.toString();
         }
 
@@ -0,0 +1,63 @@
+package tk.mihou.amatsuki.api.batch;
+
+public class BatchOptions {
+
+    /**
+     * How a batch is fetched: how many pages may be downloaded at once, how many
+     * requests are started per second (to stay polite to ScribbleHub) and the time
+     * limit of every request. Cached entries don't count against either limit.
+     */
+
+    private int concurrency = 4;
+    private double rate = 5;
+    private int timeout = 5000;
+
+    /**
+     * Sets the maximum amount of pages of the batch that are downloaded at the same time, default: 4.
+     * @param concurrency the maximum amount of requests in-flight.
+     * @return BatchOptions for chain calling.
+     */
+    public BatchOptions setConcurrency(int concurrency){
+        if(concurrency < 1)
+            throw new IllegalArgumentException("Amatsuki: a batch must be able to send at least one request at a time.");
+
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Sets how many requests of the batch are started per second at most, default: 5.
+     * @param rate the requests per second, 0 for no limit.
+     * @return BatchOptions for chain calling.
+     */
+    public BatchOptions setRate(double rate){
+        if(rate < 0)
+            throw new IllegalArgumentException("Amatsuki: the rate of a batch can't be negative.");
+
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * Sets the time limit of every request of the batch, default: 5000.
+     * @param timeout the time limit (millis).
+     * @return BatchOptions for chain calling.
+     */
+    public BatchOptions setTimeout(int timeout){
+        this.timeout = timeout;
+        return this;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+}
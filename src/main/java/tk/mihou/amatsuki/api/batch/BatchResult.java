@@ -0,0 +1,63 @@
+package tk.mihou.amatsuki.api.batch;
+
+public class BatchResult<T> {
+
+    private final String url;
+    private final T value;
+    private final Throwable error;
+    private final boolean cached;
+
+    public BatchResult(String url, T value, Throwable error, boolean cached) {
+        this.url = url;
+        this.value = value;
+        this.error = error;
+        this.cached = cached;
+    }
+
+    /**
+     * Retrieves the url this result is for.
+     * @return the url.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Retrieves the entity that was fetched.
+     * @return the entity, null if it couldn't be fetched.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Retrieves why the entity couldn't be fetched, e.g. an HttpStatusException
+     * with the status that ScribbleHub returned.
+     * @return the error, null if the entity was fetched.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Checks whether the entity was fetched.
+     * @return was the entity fetched?
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * Checks whether the entity was served from the cache without a request.
+     * @return was the entity cached?
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{url=" + url + (error == null ? ", value=" + value + ", cached=" + cached : ", error=" + error) + "}";
+    }
+
+}
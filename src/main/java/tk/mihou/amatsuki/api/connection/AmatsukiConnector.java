@@ -2,40 +2,58 @@ package tk.mihou.amatsuki.api.connection;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-import tk.mihou.amatsuki.api.enums.AmatsukiNames;
+import tk.mihou.amatsuki.api.enums.ArchiveMode;
+import tk.mihou.amatsuki.api.enums.Endpoint;
 import tk.mihou.amatsuki.api.enums.OrderBy;
 import tk.mihou.amatsuki.api.enums.Rankings;
+import tk.mihou.amatsuki.api.enums.StoryField;
 import tk.mihou.amatsuki.entities.ForumThread;
-import tk.mihou.amatsuki.entities.latest.LatestUpdatesBuilder;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
 import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
 import tk.mihou.amatsuki.entities.story.Story;
-import tk.mihou.amatsuki.entities.story.StoryBuilder;
-import tk.mihou.amatsuki.entities.story.lower.StoryResultBuilder;
 import tk.mihou.amatsuki.entities.story.lower.StoryResults;
 import tk.mihou.amatsuki.entities.user.lower.UserResults;
-import tk.mihou.amatsuki.entities.user.lower.UserResultBuilder;
 import tk.mihou.amatsuki.entities.user.User;
-import tk.mihou.amatsuki.entities.user.UserBuilder;
+import tk.mihou.amatsuki.impl.archive.PageArchive;
+import tk.mihou.amatsuki.impl.cache.CacheKeys;
 import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.RequestCoalescer;
+import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
+import tk.mihou.amatsuki.impl.cache.entities.Validators;
 import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
-
+import tk.mihou.amatsuki.impl.cache.stats.CacheStatistics;
+import tk.mihou.amatsuki.impl.executor.AmatsukiExecutors;
+import tk.mihou.amatsuki.impl.parser.HomepageParser;
+import tk.mihou.amatsuki.impl.parser.StoryParser;
+import tk.mihou.amatsuki.impl.parser.StoryResultsExtractor;
+import tk.mihou.amatsuki.impl.parser.UserParser;
+import tk.mihou.amatsuki.impl.parser.UserResultsExtractor;
+import tk.mihou.amatsuki.impl.transport.UrlConnectionTransport;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class AmatsukiConnector {
 
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private volatile ExecutorService executorService = AmatsukiExecutors.shared();
+    private volatile boolean ownsExecutor = false;
+    private volatile PageArchive archive;
+    private volatile ArchiveMode archiveMode;
+    private volatile String baseUrl = CacheKeys.DEFAULT_SITE;
+    private volatile AmatsukiTransport transport = new UrlConnectionTransport();
+    private volatile boolean streaming = false;
     private String userAgent = "Amatsuki-library/1.2.9r1 (Language=Java/1.8)";
     private String referrer = "https://manabot.fun/hello.html";
 
@@ -57,32 +75,133 @@ public class AmatsukiConnector {
         this.referrer = referrer;
     }
 
-    public CompletableFuture<List<UserResults>> searchUser(String query, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
+    /**
+     * Changes the site that the rankings, searches and latest pages are requested from,
+     * default: https://www.scribblehub.com, this is mostly useful to point the connector
+     * at a local mirror or a stub server. Stories and users are requested from the url they are given.
+     * @param baseUrl the scheme and host of the site, without a trailing slash.
+     */
+    public void setBaseUrl(String baseUrl){
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * Changes how the pages are downloaded, by default they are downloaded through
+     * HttpURLConnection with persistent connections and gzip, Jsoup only parses what the transport returns.
+     * @param transport the transport to use.
+     */
+    public void setTransport(AmatsukiTransport transport){
+        this.transport = transport;
+    }
+
+    /**
+     * Enables or disables streaming extraction of story and profile pages, which stops
+     * reading the page as soon as every section that is parsed has arrived (see {@link PageCutoff})
+     * instead of downloading the comments, sidebars and scripts below them.
+     * A page that turns out to be missing something is downloaded again in full.
+     * @param streaming should story and profile pages be cut off?
+     */
+    public void setStreamingExtraction(boolean streaming){
+        this.streaming = streaming;
+    }
+
+    /**
+     * Checks whether story and profile pages are cut off once every section that is parsed has arrived.
+     * @return is streaming extraction enabled?
+     */
+    public boolean isStreamingExtraction(){
+        return streaming;
+    }
+
+    /**
+     * Retrieves the transport that the pages are downloaded through.
+     * @return the transport.
+     */
+    public AmatsukiTransport getTransport(){
+        return transport;
+    }
+
+    /**
+     * Retrieves the site that the rankings, searches and latest pages are requested from.
+     * @return the base url.
+     */
+    public String getBaseUrl(){
+        return baseUrl;
+    }
+
+    /**
+     * Changes the executor that every request is executed on, an executor that is owned
+     * will be shut down by the connector once it is replaced or once the connector is shut down.
+     * @param executor the executor to use.
+     * @param owned should the connector shut down the executor when it is done?
+     */
+    public void setExecutor(ExecutorService executor, boolean owned){
+        ExecutorService previous;
+        boolean ownedPrevious;
+        synchronized (this){
+            previous = this.executorService;
+            ownedPrevious = this.ownsExecutor;
+            this.executorService = executor;
+            this.ownsExecutor = owned;
+        }
+
+        if(ownedPrevious && previous != executor){
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Retrieves the executor that requests are currently executed on.
+     * @return the executor.
+     */
+    public ExecutorService getExecutor(){
+        return executorService;
+    }
+
+    /**
+     * Shuts down the executor if it is owned by the connector, requests that are already
+     * queued will still be completed. The connector falls back to the shared executor afterwards.
+     */
+    public void shutdown(){
+        setExecutor(AmatsukiExecutors.shared(), false);
+    }
+
+    /**
+     * Records every page that is downloaded into the archive, or replays the pages
+     * from the archive instead of going through the network. The previous archive
+     * is closed once it is replaced.
+     *
+     * @param archive the archive to use, null to stop recording or replaying.
+     * @param mode whether to record or replay.
+     */
+    public void setArchive(PageArchive archive, ArchiveMode mode){
+        PageArchive previous;
+        synchronized (this){
+            previous = this.archive;
+            this.archiveMode = mode;
+            this.archive = archive;
+        }
+
+        if(previous != null && previous != archive){
             try {
-                List<UserResults> collection = new ArrayList<>();
-                Document doc = Jsoup.connect(String.format("https://www.scribblehub.com/?s=%s&post_type=fictionposts", encodeValue(query)))
-                        .referrer("https://scribblehub.com")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-
-                doc.getElementsByClass("sb_box search").forEach(element -> element.getElementsByClass("s_user_link").forEach(resultA -> resultA.getElementsByClass("s_user_results").forEach(results -> {
-                    UserResultBuilder builder = new UserResultBuilder();
-                    Element e = results.getElementsByClass("sur_image").first().getElementsByTag("img").first();
-                    builder.setAvatar(e.attr("src"));
-                    builder.setUser(e.attr("alt"));
-                    builder.setLink(resultA.attr("href"));
-                    collection.add(builder.build());
-                })));
-
-                if(CacheManager.search.get()){
-                    CacheManager.addCache(collection, String.format(AmatsukiNames.USER_SEARCH.getFormat(), query), CacheTypes.SEARCH);
-                }
+                previous.close();
+            } catch (IOException e) {
+                Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: couldn't close the archive: " + e.getMessage());
+            }
+        }
+    }
 
-                return collection;
-            } catch (IOException ignore) {
+    public CompletableFuture<List<UserResults>> searchUser(String query, int timeout){
+        String site = baseUrl;
+        String key = CacheKeys.userSearch(site, query);
+        return load(Endpoint.USER_SEARCH, key, site + "/?s=" + encodeValue(query) + "&post_type=fictionposts", "https://scribblehub.com", timeout, false, doc -> {
+            List<UserResults> collection = UserResultsExtractor.extract(doc);
+
+            if(CacheManager.search.get()){
+                CacheManager.addCache(collection, key, CacheTypes.SEARCH);
             }
-            return null;
+
+            return collection;
         });
     }
 
@@ -92,206 +211,68 @@ public class AmatsukiConnector {
      * @return List<StoryResults>
      */
     public CompletableFuture<List<StoryResults>> seriesFinderSearch(String url, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                List<StoryResults> stories = new ArrayList<>();
-                Document doc = Jsoup.connect(url)
-                        .referrer("https://scribblehub.com/series-finder/?sf=2")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-                doc.getElementsByClass("search_main_box").forEach(element -> {
-                    StoryResultBuilder builder = new StoryResultBuilder();
-
-                    // Gets the thumbnail and rating.
-                    builder.setThumbnail(element.getElementsByClass("search_img").select("img").attr("src"));
-                    builder.setRating(Double.parseDouble(element.getElementsByClass("search_img").first().getElementsByClass("search_ratings").first().ownText().replaceAll("[^\\d.]", "")));
-
-                    // Get the extra details.
-                    Element body = element.getElementsByClass("search_body").first();
-                    builder.setName(body.getElementsByClass("search_title").select("a").first().text());
-                    builder.setUrl(body.getElementsByClass("search_title").select("a").attr("href"));
-
-                    // Retrieve both synopsis.
-                    StringBuilder str = new StringBuilder();
-                    builder.setShortSynopsis(body.ownText());
-                    str.append(body.ownText());
-                    body.select("span.testhide").eachText().forEach(s -> str.append("\n").append(s));
-                    builder.setFullSynopsis(str.toString().replaceAll("<<less", ""));
-
-                    // Retrieve all the genres.
-                    List<String> genres = new ArrayList<>();
-                    body.getElementsByClass("search_genre").first().getElementsByTag("a").forEach(element1 -> genres.add(element1.ownText()));
-                    builder.setGenres(genres);
-
-                    // Retrieve all statistics.
-                    Element stats = body.getElementsByClass("search_stats").first();
-                    builder.setViews(stats.getElementsByTag("span").first().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setFavorites(Long.parseLong(stats.getElementsByTag("span").first().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChapters(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChw(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReaders(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReviews(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setWord(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setLastUpdated(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().nextElementSibling().ownText());
-                    builder.setCreator(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().ownText());
-                    builder.setAuthorURL(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().attr("href"));
-                    stories.add(builder.build());
-                });
-
-                if(CacheManager.search.get()){
-                    CacheManager.addCache(stories, String.format(AmatsukiNames.SERIES_FINDER.getFormat(), url), CacheTypes.SEARCH);
-                }
+        String key = CacheKeys.seriesFinder(url);
+        return load(Endpoint.SERIES_FINDER, key, url, "https://scribblehub.com/series-finder/?sf=2", timeout, false, doc -> {
+            List<StoryResults> stories = StoryResultsExtractor.extract(doc);
 
-                return stories;
-            } catch (IOException ignore) {
+            if(CacheManager.search.get()){
+                CacheManager.addCache(stories, key, CacheTypes.SEARCH);
             }
-            return null;
-        }, executorService);
+
+            return stories;
+        });
     }
 
     public CompletableFuture<List<StoryResults>> getRanking(Rankings ranking, OrderBy order, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Document doc = Jsoup.connect(String.format("https://www.scribblehub.com/series-ranking/?sort=%d&order=%d", ranking.getLocation(), order.getLocation()))
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-                List<StoryResults> panels = new ArrayList<>();
-                doc.getElementsByClass("search_main_box").forEach(element -> {
-                    StoryResultBuilder builder = new StoryResultBuilder();
-
-                    // Gets the thumbnail and rating.
-                    builder.setThumbnail(element.getElementsByClass("search_img").select("img").attr("src"));
-                    builder.setRating(Double.parseDouble(element.getElementsByClass("search_img").first().getElementsByClass("search_ratings").first().ownText().replaceAll("[^\\d.]", "")));
-
-                    // Get the extra details.
-                    Element body = element.getElementsByClass("search_body").first();
-                    builder.setName(body.getElementsByClass("search_title").select("a").first().text());
-                    builder.setUrl(body.getElementsByClass("search_title").select("a").attr("href"));
-
-                    // Retrieve both synopsis.
-                    StringBuilder str = new StringBuilder();
-                    builder.setShortSynopsis(body.ownText());
-                    str.append(body.ownText());
-                    body.select("span.testhide").eachText().forEach(s -> str.append("\n").append(s));
-                    builder.setFullSynopsis(str.toString().replaceAll("<<less", ""));
-
-                    // Retrieve all the genres.
-                    List<String> genres = new ArrayList<>();
-                    body.getElementsByClass("search_genre").first().getElementsByTag("a").forEach(element1 -> genres.add(element1.ownText()));
-                    builder.setGenres(genres);
-
-                    // Retrieve all statistics.
-                    Element stats = body.getElementsByClass("search_stats").first();
-                    builder.setViews(stats.getElementsByTag("span").first().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setFavorites(Long.parseLong(stats.getElementsByTag("span").first().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChapters(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChw(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReaders(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReviews(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setWord(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setLastUpdated(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().nextElementSibling().ownText());
-                    builder.setCreator(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().ownText());
-                    builder.setAuthorURL(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().attr("href"));
-                    panels.add(builder.build());
-                });
-
-                if(CacheManager.rankings.get()){
-                    CacheManager.addCache(panels, String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation()), CacheTypes.RANKINGS);
-                }
+        String site = baseUrl;
+        String key = CacheKeys.ranking(site, ranking, order);
+        return load(Endpoint.RANKINGS, key, site + "/series-ranking/?sort=" + ranking.getLocation() + "&order=" + order.getLocation(), null, timeout, true, doc -> {
+            List<StoryResults> panels = StoryResultsExtractor.extract(doc);
 
-                return panels;
-            } catch (IOException e) {
-                Logger.getLogger("Amatsuki").log(Level.SEVERE, "Amatsuki: https://scribblehub.com returned: " + e.getMessage());
+            if(CacheManager.rankings.get()){
+                CacheManager.addCache(panels, key, CacheTypes.RANKINGS);
             }
-            return null;
-        }, executorService);
+
+            return panels;
+        });
     }
 
-    public CompletableFuture<List<ForumThread>> getLatestTopics(int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Document doc = Jsoup.connect("https://scribblehub.com/").userAgent(userAgent).timeout(timeout).get();
-                List<ForumThread> threads = new ArrayList<>();
-                doc.getElementsByClass("site").first().getElementsByClass("site-content-contain").first().getElementsByClass("wi_fic_wrap slider")
-                        .first().getElementById("tp_latest").getElementsByTag("tr").forEach(element -> {
-                            // Adds a new thread.
-                            threads.add(new ForumThread(element.getElementsByTag("td").first().getElementsByTag("a").first().ownText(),
-                                    element.getElementsByTag("td").last().ownText(),
-                                    element.getElementsByTag("td").first().getElementsByTag("a").attr("href")));
-                });
-                return threads;
-            } catch (IOException e) {
-                Logger.getLogger("Amatsuki").log(Level.SEVERE, "Amatsuki: https://scribblehub.com returned: " + e.getMessage());
+    /**
+     * Downloads and parses the homepage once, the latest topics and latest updates
+     * are both read from the same page and cached together.
+     * @param timeout The timeout before the connection closes (in millis).
+     * @return the homepage, null if it couldn't be downloaded.
+     */
+    public CompletableFuture<HomepageSnapshot> getHomepage(int timeout){
+        String site = baseUrl;
+        String key = CacheKeys.homepage(site);
+        return load(Endpoint.HOMEPAGE, key, site + "/", null, timeout, true, doc -> {
+            HomepageSnapshot snapshot = HomepageParser.snapshot(doc);
+
+            if(CacheManager.rankings.get()){
+                CacheManager.addCache(snapshot, key, CacheTypes.RANKINGS);
             }
-            return null;
+
+            return snapshot;
         });
     }
 
+    public CompletableFuture<List<ForumThread>> getLatestTopics(int timeout){
+        return getHomepage(timeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestTopics());
+    }
+
     public CompletableFuture<List<StoryResults>> getLatestSeries(int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Document doc = Jsoup.connect("https://www.scribblehub.com/latest-series/")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-                List<StoryResults> panels = new ArrayList<>();
-                doc.getElementsByClass("search_main_box").forEach(element -> {
-                    StoryResultBuilder builder = new StoryResultBuilder();
-
-                    // Gets the thumbnail and rating.
-                    builder.setThumbnail(element.getElementsByClass("search_img").select("img").attr("src"));
-                    builder.setRating(Double.parseDouble(element.getElementsByClass("search_img").first().getElementsByClass("search_ratings").first().ownText().replaceAll("[^\\d.]", "")));
-
-                    // Get the extra details.
-                    Element body = element.getElementsByClass("search_body").first();
-                    builder.setName(body.getElementsByClass("search_title").select("a").first().text());
-                    builder.setUrl(body.getElementsByClass("search_title").select("a").attr("href"));
-
-                    // Retrieve both synopsis.
-                    StringBuilder str = new StringBuilder();
-                    builder.setShortSynopsis(body.ownText());
-                    str.append(body.ownText());
-                    body.select("span.testhide").eachText().forEach(s -> str.append("\n").append(s));
-                    builder.setFullSynopsis(str.toString().replaceAll("<<less", ""));
-
-                    // Retrieve all the genres.
-                    List<String> genres = new ArrayList<>();
-                    body.getElementsByClass("search_genre").first().getElementsByTag("a").forEach(element1 -> genres.add(element1.ownText()));
-                    builder.setGenres(genres);
-
-                    // Retrieve all statistics.
-                    Element stats = body.getElementsByClass("search_stats").first();
-                    builder.setViews(stats.getElementsByTag("span").first().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setFavorites(Long.parseLong(stats.getElementsByTag("span").first().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChapters(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChw(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReaders(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReviews(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setWord(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setLastUpdated(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().nextElementSibling().ownText());
-                    builder.setCreator(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().ownText());
-                    builder.setAuthorURL(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().attr("href"));
-                    panels.add(builder.build());
-                });
-
-                if(CacheManager.rankings.get()){
-                    CacheManager.addCache(panels, AmatsukiNames.LATEST_SERIES.getFormat(), CacheTypes.RANKINGS);
-                }
+        String site = baseUrl;
+        String key = CacheKeys.latestSeries(site);
+        return load(Endpoint.LATEST_SERIES, key, site + "/latest-series/", null, timeout, true, doc -> {
+            List<StoryResults> panels = StoryResultsExtractor.extract(doc);
 
-                return panels;
-            } catch (IOException e) {
-                Logger.getLogger("Amatsuki").log(Level.SEVERE, "Amatsuki: https://scribblehub.com returned: " + e.getMessage());
+            if(CacheManager.rankings.get()){
+                CacheManager.addCache(panels, key, CacheTypes.RANKINGS);
             }
-            return null;
-        }, executorService);
+
+            return panels;
+        });
     }
 
     /**
@@ -300,274 +281,311 @@ public class AmatsukiConnector {
      * @return List<LatestUpdateResults>
      */
     public CompletableFuture<List<LatestUpdatesResult>> getLatestUpdates(int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            List<LatestUpdatesResult> results = new ArrayList<>();
-            try {
-                Document doc = Jsoup.connect("https://www.scribblehub.com/")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-                doc.getElementsByClass("wi-editfic_l-content_main").first().getElementsByClass("latest_releases_main")
-                .first().getElementsByClass("mr_fictable").first().getElementsByTag("tbody").first().getElementsByTag("tr").forEach(element -> {
-                    Element td = element.getElementsByTag("td").first();
-                    LatestUpdatesBuilder builder = new LatestUpdatesBuilder();
-                    // Sets the thumbnail.
-                    builder.setThumbnail(td.getElementsByClass("m_img_fic").first().getElementsByTag("img").first().attr("src"));
-                    Element body = element.getElementsByClass("search_body ficmain").first();
-                    // Sets the story details.
-                    builder.setStoryURL(body.getElementsByTag("span").first().getElementsByClass("fp_title main").first().attr("href"));
-                    builder.setStoryName(body.getElementsByTag("span").first().getElementsByClass("fp_title main").first().attr("title"));
-                    // Sets the genres.
-                    List<String> genres = new ArrayList<>();
-                    body.getElementsByTag("div").first().getElementsByClass("fic_genre search ahmain").forEach(element1 -> genres.add(element1.ownText()));
-                    builder.setGenres(genres);
-                    // Set the chapter details.
-                    builder.setChapterURL(body.getElementsByTag("div").next().first().getElementsByTag("a").attr("href"));
-                    builder.setChapterTitle(body.getElementsByTag("div").next().first().getElementsByTag("a").first().ownText());
-                    // Sets the author details.
-                    builder.setAuthorName(body.getElementsByTag("div").last().getElementsByClass("fp_authorname").first().ownText());
-                    builder.setAuthorURL(body.getElementsByTag("div").last().getElementsByTag("a").attr("href"));
-                    // Last update.
-                    builder.setLastUpdate(body.getElementsByTag("div").last().ownText().replaceFirst(", ", ""));
-                    results.add(builder.build());
-                });
-
-                if(CacheManager.rankings.get()){
-                    CacheManager.addCache(results, AmatsukiNames.LATEST_UPDATES.getFormat(), CacheTypes.RANKINGS);
-                }
-
-                return results;
-            } catch (IOException e) {
-                Logger.getLogger("Amatsuki").log(Level.SEVERE, "Amatsuki: https://scribblehub.com returned: " + e.getMessage());
-            }
-            return null;
-        }, executorService);
+        return getHomepage(timeout).thenApply(snapshot -> snapshot == null ? null : snapshot.getLatestUpdates());
     }
 
     public CompletableFuture<List<StoryResults>> searchStory(String query, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                List<StoryResults> stories = new ArrayList<>();
-                Document doc = Jsoup.connect(String.format("https://www.scribblehub.com/?s=%s&post_type=fictionposts", encodeValue(query)))
-                        .referrer("https://scribblehub.com")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-                doc.getElementsByClass("search_main_box").forEach(element -> {
-                    StoryResultBuilder builder = new StoryResultBuilder();
-
-                    // Gets the thumbnail and rating.
-                    builder.setThumbnail(element.getElementsByClass("search_img").select("img").attr("src"));
-                    builder.setRating(Double.parseDouble(element.getElementsByClass("search_img").first().getElementsByClass("search_ratings").first().ownText().replaceAll("[^\\d.]", "")));
-
-                    // Get the extra details.
-                    Element body = element.getElementsByClass("search_body").first();
-                    builder.setName(body.getElementsByClass("search_title").select("a").first().text());
-                    builder.setUrl(body.getElementsByClass("search_title").select("a").attr("href"));
-
-                    // Retrieve both synopsis.
-                    StringBuilder str = new StringBuilder();
-                    builder.setShortSynopsis(body.ownText());
-                    str.append(body.ownText());
-                    body.select("span.testhide").eachText().forEach(s -> str.append("\n").append(s));
-                    builder.setFullSynopsis(str.toString().replaceAll("<<less", ""));
-
-                    // Retrieve all the genres.
-                    List<String> genres = new ArrayList<>();
-                    body.getElementsByClass("search_genre").first().getElementsByTag("a").forEach(element1 -> genres.add(element1.ownText()));
-                    builder.setGenres(genres);
-
-                    // Retrieve all statistics.
-                    Element stats = body.getElementsByClass("search_stats").first();
-                    builder.setViews(stats.getElementsByTag("span").first().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setFavorites(Long.parseLong(stats.getElementsByTag("span").first().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChapters(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setChw(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReaders(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setReviews(Integer.parseInt(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().ownText().replaceAll("[^\\d]", "")));
-                    builder.setWord(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().ownText().replaceAll("[^\\d.km]", ""));
-                    builder.setLastUpdated(stats.getElementsByTag("span").first().nextElementSibling().nextElementSibling().nextElementSibling().nextElementSibling()
-                            .nextElementSibling().nextElementSibling().nextElementSibling().ownText());
-                    builder.setCreator(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().ownText());
-                    builder.setAuthorURL(stats.getElementsByTag("span").last().getElementsByTag("span").first().getElementsByTag("a").first().attr("href"));
-                    stories.add(builder.build());
-                });
-
-                if(CacheManager.search.get()){
-                    CacheManager.addCache(stories, String.format(AmatsukiNames.STORY_SEARCH.getFormat(), query), CacheTypes.SEARCH);
-                }
+        String site = baseUrl;
+        String key = CacheKeys.storySearch(site, query);
+        return load(Endpoint.STORY_SEARCH, key, site + "/?s=" + encodeValue(query) + "&post_type=fictionposts", "https://scribblehub.com", timeout, false, doc -> {
+            List<StoryResults> stories = StoryResultsExtractor.extract(doc);
 
-                return stories;
-            } catch (IOException ignore) {
+            if(CacheManager.search.get()){
+                CacheManager.addCache(stories, key, CacheTypes.SEARCH);
             }
-            return null;
-        }, executorService);
+
+            return stories;
+        });
     }
 
     public CompletableFuture<Story> getStoryByUrl(String url, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                StoryBuilder entity = new StoryBuilder();
-                // Connects to the URL.
-                Document doc = Jsoup.connect(url)
-                        .referrer(referrer)
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-
-                // Retrieve the synopsis.
-                Element details = doc.getElementsByClass("wi_fic_wrap bottom").first().getElementsByClass("wi-fic_l-content fic")
-                        .first().getElementsByClass("box_fictionpage details").first().getElementsByClass("fic_row details").first();
-                StringBuilder perfectDescription = new StringBuilder();
-                details.getElementsByClass("wi_fic_desc").first().getElementsByTag("p").forEach(element -> perfectDescription.append(element.ownText()).append("\n"));
-                entity.setSynopsis(perfectDescription.toString());
-
-                // Retrieving the genres.
-                List<String> genres = new ArrayList<>();
-                details.getElementsByClass("wi_fic_genre").first().getElementsByClass("fic_genre").forEach(element -> genres.add(element.ownText()));
-
-                // Retrieving the tags.
-                List<String> tags = new ArrayList<>();
-                details.getElementsByClass("wi_fic_showtags").first().getElementsByTag("span").forEach(element -> element.getElementsByTag("a").forEach(element1 -> tags.add(element1.ownText())));
-
-                // Deploying all the data onto the entity.
-                entity.setGenres(genres);
-                entity.setTags(tags);
-
-                Elements views = doc.getElementsByClass("fic_stats");
-
-                // Transformed all of these to a one-liner, collects the rating statistics.
-                entity.setRating(Double.parseDouble(doc.getElementsByClass("fic_rate").select("span").first().getElementsByTag("span").first().text().split(" ")[0]));
-                entity.setRatings(Integer.parseInt(doc.getElementsByClass("fic_rate").select("span").first().getElementsByTag("span").first().text().split(" ")[1].replaceAll("[^\\d.]", "")));
-
-                // Transformed all these to a one to two-liner, this part collects all the statistics.
-                entity.setViews(views.select("span.st_item").before("span.mb_stat").first().text().replaceAll("[^\\d.km]", ""));
-                entity.setFavorites(views.select("span.st_item").before("span.mb_stat").first().nextElementSibling().text().replaceAll("[^\\d]", ""));
-                entity.setChapters(Integer.parseInt(views.select("span.st_item").before("span.mb_stat").first().nextElementSibling().nextElementSibling().text().replaceAll("[^\\d]", "")));
-                entity.setChapterPerWeek(Integer.parseInt(views.select("span.st_item").before("span.mb_stat").first().nextElementSibling().nextElementSibling()
-                        .nextElementSibling().text().replaceAll("[^\\d]", "")));
-                entity.setReaders(Integer.parseInt(views.select("span.st_item").before("span.mb_stat").last().text().replaceAll("[^\\d]", "")));
-
-                // Retrieving basic information from meta tags.
-                entity.setTitle(doc.select("meta[name='twitter:title']").attr("content"));
-                entity.setImage(doc.select("meta[name='twitter:image']").attr("content"));
-                entity.setCreator(doc.select("meta[name='twitter:creator']").attr("content"));
-
-                // Retrieve SID (UID but for series).
-                entity.setSID(Integer.parseInt(doc.select("div.site").first().getElementsByClass("site-content-contain").first().select("input[id='mypostid']").attr("value")));
-
-                // I wonder why I was getting the URL when there is already a URL provided?
-                entity.setUrl(url);
-
-                // Add to cache.
-                if(CacheManager.enabled.get()){
-                    CacheManager.addCache(entity.build(), url);
-                }
+        return load(Endpoint.STORY, url, url, referrer, timeout, false, cutoff(StoryParser.CUTOFF), story(url, url, StoryField.ALL));
+    }
 
-                return entity.build();
-            } catch (IOException ignore) {
-            }
-            return null;
-        }, executorService);
+    /**
+     * Fetches only some fields of the story, the page is only read up to the last of the fields
+     * when streaming extraction is enabled. Partial stories are cached apart from the whole story
+     * (under {@link CacheKeys#story(String, Set)}) so they never stand in for it, the story that
+     * was fetched last replaces the partial story of the url.
+     * @param url the url of the story.
+     * @param fields the fields to read.
+     * @param timeout the time limit (millis).
+     * @return the story, with only the given fields.
+     */
+    public CompletableFuture<Story> getStoryByUrl(String url, Set<StoryField> fields, int timeout){
+        if(fields.containsAll(StoryField.ALL))
+            return getStoryByUrl(url, timeout);
+
+        String key = CacheKeys.story(url, fields);
+        return request(Endpoint.STORY, key, CacheKeys.storyRequest(url, fields), url, referrer, timeout, cutoff(StoryParser.cutoff(fields)), story(url, key, fields))
+                .exceptionally(throwable -> failed(throwable, false));
     }
 
     public CompletableFuture<User> getUserFromUrl(String url, int timeout){
-        return CompletableFuture.supplyAsync(() -> {
-            UserBuilder builder = new UserBuilder();
-            try {
-                Document doc = Jsoup.connect(url)
-                        .referrer("https://scribblehub.com")
-                        .userAgent(userAgent)
-                        .timeout(timeout).get();
-
-                // Validate is user has disabled their profile.
-                if(doc.getElementsByClass("error_msg_profile").first() != null){
-                    if(doc.getElementsByClass("error_msg_profile").first().ownText().contains("disable their profile.")){
-                        // Grab the UID (since this is important) for RSS.
-                        builder.setUID(Integer.parseInt(url.replaceAll("[^\\d]", "")));
-
-                        // Also grab the user's name.
-                        builder.setName(doc.select("title").first().ownText().replaceFirst("'s Profile \\| Scribble Hub", ""));
-
-                        // Default all the data.
-                        builder.setHomepage("Disabled");
-                        builder.setLocation("Disabled");
-                        builder.setBirthday("Disabled");
-                        builder.setBio("This user has disabled their profile.");
-                        builder.setLastActive("Disabled");
-                        builder.setGender("Disabled");
-                        builder.setDisabled(true);
-                        builder.setAvatar("https://cdn.scribblehub.com/default/avatar.jpg");
-                        builder.setUrl(url);
-
-                        // Default all the statistic numbers.
-                        builder.setTotalViews(0);
-                        builder.setTotalFollowers(0);
-                        builder.setTotalReaders(0);
-                        builder.setTotalReviews(0);
-                        builder.setTotalSeries(0);
-                        builder.setTotalWords(0);
-
-                        // Add to cache.
-                        if(CacheManager.enabled.get()) {
-                            CacheManager.addCache(builder.build(), url);
+        return load(Endpoint.USER, url, url, "https://scribblehub.com", timeout, false, cutoff(UserParser.CUTOFF), user(url));
+    }
+
+    /**
+     * Fetches the story like {@link #getStoryByUrl(String, int)}, except that a page which
+     * couldn't be downloaded completes the future exceptionally with the reason instead of null.
+     * @param url the url of the story.
+     * @param timeout the time limit (millis).
+     * @return the story.
+     */
+    public CompletableFuture<Story> requestStory(String url, int timeout){
+        return request(Endpoint.STORY, url, url, referrer, timeout, cutoff(StoryParser.CUTOFF), story(url, url, StoryField.ALL));
+    }
+
+    /**
+     * Fetches the user like {@link #getUserFromUrl(String, int)}, except that a page which
+     * couldn't be downloaded completes the future exceptionally with the reason instead of null.
+     * @param url the url of the user.
+     * @param timeout the time limit (millis).
+     * @return the user.
+     */
+    public CompletableFuture<User> requestUser(String url, int timeout){
+        return request(Endpoint.USER, url, url, "https://scribblehub.com", timeout, cutoff(UserParser.CUTOFF), user(url));
+    }
+
+    private static Function<Document, Story> story(String url, String key, Set<StoryField> fields){
+        return doc -> {
+            Story story = StoryParser.parse(doc, url, fields);
+
+            // Add to cache.
+            if(CacheManager.enabled.get()){
+                CacheManager.addCache(story, key);
+            }
+
+            return story;
+        };
+    }
+
+    private static Function<Document, User> user(String url){
+        return doc -> {
+            User user = UserParser.parse(doc, url);
+
+            // Add to cache.
+            if(CacheManager.enabled.get()){
+                CacheManager.addCache(user, url);
+            }
+
+            return user;
+        };
+    }
+
+    /**
+     * Downloads and parses the page, callers asking for a key that is already
+     * being loaded share the same request. A page that couldn't be downloaded
+     * results in null, like it always has.
+     *
+     * When the key is cached with validators (even if it has expired), the request is
+     * conditional: a 304 or a body identical to the cached one renews the cached entry
+     * without parsing the page again.
+     *
+     * @param endpoint the endpoint, used for statistics.
+     * @param key the cache key of the request.
+     * @param url the url of the page.
+     * @param referrer the referrer to send, null for none.
+     * @param timeout the time limit (millis).
+     * @param log should a failed download be logged?
+     * @param parser parses and caches the result, this runs on the executor.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> load(Endpoint endpoint, String key, String url, String referrer, int timeout, boolean log, Function<Document, T> parser){
+        return load(endpoint, key, url, referrer, timeout, log, null, parser);
+    }
+
+    /**
+     * Same as {@link #load(Endpoint, String, String, String, int, boolean, Function)} but the transport
+     * is allowed to stop reading the page at the cutoff.
+     *
+     * @param endpoint the endpoint, used for statistics.
+     * @param key the cache key of the request.
+     * @param url the url of the page.
+     * @param referrer the referrer to send, null for none.
+     * @param timeout the time limit (millis).
+     * @param log should a failed download be logged?
+     * @param cutoff where the part of the page that is parsed ends, null to read the whole page.
+     * @param parser parses and caches the result, this runs on the executor.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> load(Endpoint endpoint, String key, String url, String referrer, int timeout, boolean log, PageCutoff cutoff, Function<Document, T> parser){
+        return request(endpoint, key, url, referrer, timeout, cutoff, parser).exceptionally(throwable -> failed(throwable, log));
+    }
+
+    /**
+     * Same as {@link #load(Endpoint, String, String, String, int, boolean, PageCutoff, Function)} but a page
+     * that couldn't be downloaded completes the result exceptionally.
+     *
+     * A page that was cut off but couldn't be parsed (e.g. its layout moved past the cutoff)
+     * is downloaded again in full before giving up.
+     *
+     * @param endpoint the endpoint, used for statistics.
+     * @param key the cache key of the request.
+     * @param url the url of the page.
+     * @param referrer the referrer to send, null for none.
+     * @param timeout the time limit (millis).
+     * @param cutoff where the part of the page that is parsed ends, null to read the whole page.
+     * @param parser parses and caches the result, this runs on the executor.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> request(Endpoint endpoint, String key, String url, String referrer, int timeout, PageCutoff cutoff, Function<Document, T> parser){
+        return request(endpoint, key, key, url, referrer, timeout, cutoff, parser);
+    }
+
+    /**
+     * Same as {@link #request(Endpoint, String, String, String, int, PageCutoff, Function)} but the request
+     * is shared under its own key, this is used when a cache key holds values of different requests
+     * (e.g. partial stories). Such requests are never conditional since the cached value may not hold
+     * everything that is requested.
+     *
+     * @param endpoint the endpoint, used for statistics.
+     * @param key the cache key of the request.
+     * @param flight the key that the request is shared under.
+     * @param url the url of the page.
+     * @param referrer the referrer to send, null for none.
+     * @param timeout the time limit (millis).
+     * @param cutoff where the part of the page that is parsed ends, null to read the whole page.
+     * @param parser parses and caches the result, this runs on the executor.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    private <T> CompletableFuture<T> request(Endpoint endpoint, String key, String flight, String url, String referrer, int timeout, PageCutoff cutoff, Function<Document, T> parser){
+        return RequestCoalescer.coalesce(flight, () -> {
+            CacheEntity<?> previous = key.equals(flight) ? CacheManager.getRevalidatable(key) : null;
+            Validators validators = previous == null ? null : previous.getValidators();
+
+            return CacheStatistics.time(endpoint, download(url, referrer, timeout, validators, cutoff)
+                    .thenCompose(response -> {
+                        if(response.getStatus() == 304 && validators == null)
+                            throw new CompletionException(new IOException(url + " returned 304 to an unconditional request."));
+
+                        long hash = response.getStatus() == 304 ? validators.getHash() : Validators.hash(response.getBody());
+                        Validators current = new Validators(response.getHeader("ETag"), response.getHeader("Last-Modified"), hash);
+
+                        if(validators != null && (response.getStatus() == 304 || validators.getHash() == hash)){
+                            CacheManager.renew(key, previous, current);
+                            CacheStatistics.recordRevalidation(endpoint);
+                            // The entity was stored by the parser of this key, so it holds a T.
+                            @SuppressWarnings("unchecked")
+                            T cached = (T) previous.value();
+                            return CompletableFuture.completedFuture(cached);
+                        }
+
+                        try {
+                            T result = parser.apply(parse(response));
+                            CacheManager.setValidators(key, result, current);
+                            return CompletableFuture.completedFuture(result);
+                        } catch (RuntimeException e) {
+                            if(!response.isTruncated())
+                                throw e;
                         }
 
-                        return builder.build();
-                    }
+                        // The cut off page was missing something, read the whole page instead.
+                        return download(url, referrer, timeout, null, null).thenApply(page -> {
+                            T result = parser.apply(parse(page));
+                            CacheManager.setValidators(key, result, new Validators(page.getHeader("ETag"), page.getHeader("Last-Modified"), Validators.hash(page.getBody())));
+                            return result;
+                        });
+                    }));
+        });
+    }
+
+    /**
+     * Retrieves the cutoff to use for a page, pages are only cut off when streaming extraction
+     * is enabled and they aren't being recorded, since the archive should hold whole pages.
+     * @param cutoff the cutoff of the page.
+     * @return the cutoff, null if the whole page should be read.
+     */
+    private PageCutoff cutoff(PageCutoff cutoff){
+        return streaming && !(archive != null && archiveMode == ArchiveMode.RECORD) ? cutoff : null;
+    }
+
+    /**
+     * Downloads the page through the transport, or replays it from the archive when replaying.
+     * The response is completed on the executor, whatever transport is used.
+     *
+     * @param url the url of the page.
+     * @param referrer the referrer to send, null for none.
+     * @param timeout the time limit (millis).
+     * @param validators the validators of the cached page, null to download the page unconditionally.
+     * @param cutoff where the transport can stop reading the page, null to read the whole page.
+     * @return the response, completed with an IOException if it couldn't be downloaded or isn't archived.
+     */
+    private CompletableFuture<TransportResponse> download(String url, String referrer, int timeout, Validators validators, PageCutoff cutoff){
+        ExecutorService executor = executorService;
+        PageArchive current = archive;
+        if(current != null && archiveMode == ArchiveMode.REPLAY){
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    byte[] body = current.read(url);
+                    if(body == null)
+                        throw new IOException(url + " was never recorded.");
+
+                    return new TransportResponse(url, 200, body, null, Collections.emptyMap());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
                 }
+            }, executor);
+        }
+
+        TransportRequest request = new TransportRequest(url, timeout)
+                .setHeader("User-Agent", userAgent)
+                .setHeader("Referer", referrer)
+                .setCutoff(cutoff);
+
+        if(validators != null){
+            request.setHeader("If-None-Match", validators.getEtag())
+                    .setHeader("If-Modified-Since", validators.getLastModified());
+        }
+
+        // Transports complete on the executor, so the parsing afterwards doesn't need another hop.
+        CompletableFuture<TransportResponse> response = transport.fetchAsync(request, executor);
+        if(current == null)
+            return response;
 
-                // Collects the perfect bio, since whitespace is killed by Jsoup, we simply add '\n' after every <p>.
-                StringBuilder bio = new StringBuilder();
-                doc.getElementsByClass("user_bio_profile").first().getElementsByTag("p").forEach(element ->
-                        bio.append(element.text()).append("\n"));
-                builder.setBio(bio.toString());
-
-                // Transformed into a one-liner, collects the meta tags information.
-                Element metad = doc.getElementsByClass("site-content-contain profile").first();
-                builder.setAvatar(metad.select("meta[property='og:image']").attr("content"));
-                builder.setName(metad.select("meta[property='og:description']").attr("content").split("'s")[0]);
-
-                // Collects the basic information of the author, date, birthday and etc.
-                Element tableOne = doc.getElementsByClass("table_pro_overview").first();
-                builder.setLastActive(tableOne.select("tr").first().select("td").text());
-                builder.setBirthday(tableOne.select("tr").first().nextElementSibling().select("td").text());
-                builder.setGender(tableOne.select("tr").first().nextElementSibling().nextElementSibling().select("td").text());
-                builder.setLocation(tableOne.select("tr").first().nextElementSibling().nextElementSibling().nextElementSibling().select("td").text());
-                builder.setHomepage(tableOne.select("tr").last().select("td").select("a").text());
-
-                // Collects the author statistics, improved as of v1.1.5
-                Element table = doc.getElementsByClass("table_pro_overview").last();
-                // Sets the total series.
-                builder.setTotalSeries(Integer.parseInt(table.select("tr").first().select("td").text()));
-                // Sets the total words.
-                builder.setTotalWords(Long.parseLong(table.select("tr").first().nextElementSibling().select("td").text().replaceAll("[^\\d]", "")));
-                // Sets the total views.
-                builder.setTotalViews(Long.parseLong(table.select("tr").first().nextElementSibling().nextElementSibling().select("td").text().replaceAll("[^\\d]", "")));
-                // Sets the total reviews received.
-                builder.setTotalReviews(Integer.parseInt(table.select("tr").first().nextElementSibling().nextElementSibling()
-                        .nextElementSibling().select("td").text().replaceAll("[^\\d]", "")));
-                // Sets the total readers.
-                builder.setTotalReaders(Integer.parseInt(table.select("tr").first().nextElementSibling().nextElementSibling()
-                        .nextElementSibling().nextElementSibling().select("td").text().replaceAll("[^\\d]", "")));
-                // Sets the total followers.
-                builder.setTotalFollowers(Integer.parseInt(table.select("tr").last().select("td").text().replaceAll("[^\\d]", "")));
-
-                // Retrieve UID.
-                builder.setUID(Integer.parseInt(metad.select("input[name='authorid']").first().attr("value")));
-
-                // Sets the URL.
-                builder.setUrl(url);
-
-                // Add to cache.
-                if(CacheManager.enabled.get()){
-                    CacheManager.addCache(builder.build(), url);
+        return response.thenApply(page -> {
+            try {
+                if(page.getStatus() != 304 && !page.isTruncated()){
+                    current.record(url, page.getBody());
                 }
 
-                return builder.build();
-            } catch (IOException ignore) {
+                return page;
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-            return null;
-        }, executorService);
+        });
+    }
+
+    private static Document parse(TransportResponse response){
+        try {
+            return Jsoup.parse(new ByteArrayInputStream(response.getBody()), response.getCharset(), response.getUrl());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Turns a failed download into null, anything else (e.g. a page whose layout
+     * changed) is still thrown to the caller.
+     * @param throwable the failure.
+     * @param log should the failure be logged?
+     * @param <T> the type of the result.
+     * @return null.
+     */
+    private <T> T failed(Throwable throwable, boolean log){
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if(!(cause instanceof IOException))
+            throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(cause);
+
+        if(log){
+            Logger.getLogger("Amatsuki").log(Level.SEVERE, "Amatsuki: " + baseUrl + " returned: " + cause.getMessage());
+        }
+
+        return null;
     }
 
     private static String encodeValue(String value) {
@@ -0,0 +1,45 @@
+package tk.mihou.amatsuki.api.connection;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+public interface AmatsukiTransport {
+
+    /**
+     * Sends a request and reads the whole body of the response, every page
+     * that the connector needs goes through here and is only parsed afterwards.
+     *
+     * Responses with an error status (400 and above) are expected to be thrown
+     * as an IOException, like Jsoup does with its HttpStatusException.
+     *
+     * @param request the request to send.
+     * @return the response, with the body already decompressed.
+     * @throws IOException if the request failed or returned an error status.
+     */
+    TransportResponse fetch(TransportRequest request) throws IOException;
+
+    /**
+     * Sends a request without waiting for the response, by default this runs
+     * {@link #fetch(TransportRequest)} on the executor, transports that are
+     * asynchronous by nature don't need to block a thread at all.
+     *
+     * The page is parsed on whichever thread completes the future, which is why
+     * it should be completed on the executor rather than on an I/O thread.
+     *
+     * @param request the request to send.
+     * @param executor the executor of the connector.
+     * @return the response, completed exceptionally with the IOException if the request failed.
+     */
+    default CompletableFuture<TransportResponse> fetchAsync(TransportRequest request, Executor executor){
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch(request);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+}
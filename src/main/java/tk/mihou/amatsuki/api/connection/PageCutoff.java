@@ -0,0 +1,269 @@
+package tk.mihou.amatsuki.api.connection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PageCutoff {
+
+    /**
+     * Describes where the part of a page that is actually read ends, so that a transport
+     * can stop reading the body there instead of downloading comments, sidebars and scripts
+     * that are thrown away anyway.
+     *
+     * A cutoff is made of one or more alternatives, each being markers that have to appear
+     * in order (e.g. the class of the last section that is read, followed by its closing tag),
+     * the cutoff is reached right after the last marker of any alternative, or once the element
+     * that holds the last marker is closed.
+     * The markers are matched against the raw bytes, which is why they have to be ASCII.
+     */
+
+    private final List<Alternative> alternatives;
+
+    private PageCutoff(List<Alternative> alternatives){
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Creates a cutoff that is reached once the markers have appeared in order.
+     * @param markers the markers, in the order they appear on the page.
+     * @return the cutoff.
+     */
+    public static PageCutoff after(String... markers){
+        return new PageCutoff(Collections.singletonList(new Alternative(bytes(markers), null)));
+    }
+
+    /**
+     * Creates a cutoff that is reached once the element that holds the last marker is closed,
+     * the markers have to appear in order and the last one should be inside of the opening tag
+     * (e.g. the class of the element). Elements of the same tag that are nested inside are
+     * counted, so their closing tags never end the element early.
+     * @param tag the tag of the element, e.g. div.
+     * @param markers the markers, in the order they appear on the page.
+     * @return the cutoff.
+     */
+    public static PageCutoff element(String tag, String... markers){
+        return new PageCutoff(Collections.singletonList(new Alternative(bytes(markers), tag)));
+    }
+
+    /**
+     * Creates a cutoff that is also reached once the other markers have appeared in order,
+     * this is used for pages that can have more than one layout (e.g. a disabled profile).
+     * @param markers the markers, in the order they appear on the page.
+     * @return a new cutoff with both alternatives.
+     */
+    public PageCutoff or(String... markers){
+        return or(new Alternative(bytes(markers), null));
+    }
+
+    /**
+     * Creates a cutoff that is also reached once the element that holds the last of the
+     * other markers is closed, see {@link #element(String, String...)}.
+     * @param tag the tag of the element, e.g. div.
+     * @param markers the markers, in the order they appear on the page.
+     * @return a new cutoff with both alternatives.
+     */
+    public PageCutoff orElement(String tag, String... markers){
+        return or(new Alternative(bytes(markers), tag));
+    }
+
+    private PageCutoff or(Alternative alternative){
+        List<Alternative> both = new ArrayList<>(alternatives);
+        both.add(alternative);
+        return new PageCutoff(both);
+    }
+
+    /**
+     * Creates a scanner for a single body, scanners keep their progress between chunks
+     * and aren't thread-safe.
+     * @return a new scanner.
+     */
+    public Scanner scanner(){
+        return new Scanner(alternatives);
+    }
+
+    private static byte[][] bytes(String... markers){
+        if(markers.length == 0)
+            throw new IllegalArgumentException("Amatsuki: a cutoff needs at least one marker.");
+
+        byte[][] bytes = new byte[markers.length][];
+        for(int i = 0; i < markers.length; i++){
+            if(markers[i].isEmpty())
+                throw new IllegalArgumentException("Amatsuki: the markers of a cutoff can't be empty.");
+
+            bytes[i] = markers[i].getBytes(StandardCharsets.US_ASCII);
+        }
+
+        return bytes;
+    }
+
+    private static class Alternative {
+
+        private final byte[][] markers;
+        // The tags of the element the last marker is in, null when the cutoff is right after the markers.
+        private final byte[] open;
+        private final byte[] close;
+
+        private Alternative(byte[][] markers, String tag){
+            if(tag != null && (tag.isEmpty() || !tag.matches("[a-zA-Z0-9]+")))
+                throw new IllegalArgumentException("Amatsuki: " + tag + " isn't the name of a tag.");
+
+            this.markers = markers;
+            this.open = tag == null ? null : ("<" + tag.toLowerCase()).getBytes(StandardCharsets.US_ASCII);
+            this.close = tag == null ? null : ("</" + tag.toLowerCase() + ">").getBytes(StandardCharsets.US_ASCII);
+        }
+
+    }
+
+    public static class Scanner {
+
+        private final Alternative[] alternatives;
+        private final int[][][] fallbacks;
+
+        // Which marker of each alternative is being looked for, and how much of it has matched so far.
+        private final int[] marker;
+        private final int[] matched;
+
+        // How many elements of the tag are open once the markers were found, 0 while looking for the markers.
+        private final int[] depth;
+        private final int[] opening;
+        private final int[] closing;
+        // An opening tag matched and only needs the byte after the name, e.g. <div but not <divider.
+        private final boolean[] opened;
+
+        private Scanner(List<Alternative> alternatives){
+            this.alternatives = alternatives.toArray(new Alternative[0]);
+            this.fallbacks = new int[this.alternatives.length][][];
+            this.marker = new int[this.alternatives.length];
+            this.matched = new int[this.alternatives.length];
+            this.depth = new int[this.alternatives.length];
+            this.opening = new int[this.alternatives.length];
+            this.closing = new int[this.alternatives.length];
+            this.opened = new boolean[this.alternatives.length];
+
+            for(int i = 0; i < this.alternatives.length; i++){
+                byte[][] markers = this.alternatives[i].markers;
+                fallbacks[i] = new int[markers.length][];
+                for(int j = 0; j < markers.length; j++){
+                    fallbacks[i][j] = fallback(markers[j]);
+                }
+            }
+        }
+
+        /**
+         * Scans the next chunk of the body.
+         * @param buffer the buffer holding the chunk.
+         * @param offset where the chunk starts in the buffer.
+         * @param length the length of the chunk.
+         * @return the index in the buffer right after the cutoff, -1 if the cutoff isn't in this chunk.
+         */
+        public int update(byte[] buffer, int offset, int length){
+            for(int index = offset; index < offset + length; index++){
+                byte current = buffer[index];
+                for(int i = 0; i < alternatives.length; i++){
+                    if(depth[i] > 0){
+                        if(closes(i, current))
+                            return index + 1;
+
+                        continue;
+                    }
+
+                    byte[][] markers = alternatives[i].markers;
+                    byte[] expected = markers[marker[i]];
+                    int position = matched[i];
+
+                    // Knuth-Morris-Pratt, so a partial match never makes us miss the marker.
+                    while(position > 0 && expected[position] != current){
+                        position = fallbacks[i][marker[i]][position - 1];
+                    }
+
+                    if(expected[position] == current){
+                        position++;
+                    }
+
+                    if(position == expected.length){
+                        position = 0;
+                        if(++marker[i] == markers.length){
+                            if(alternatives[i].open == null)
+                                return index + 1;
+
+                            // The last marker is inside of the opening tag of the element.
+                            depth[i] = 1;
+                        }
+                    }
+
+                    matched[i] = position;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Follows the opening and closing tags inside of the element of the alternative.
+         * @param i the alternative.
+         * @param current the current byte of the body.
+         * @return was the element closed?
+         */
+        private boolean closes(int i, byte current){
+            Alternative alternative = alternatives[i];
+            byte lower = current >= 'A' && current <= 'Z' ? (byte) (current + ('a' - 'A')) : current;
+
+            if(opened[i]){
+                opened[i] = false;
+                if(lower == '>' || lower == '/' || lower == ' ' || lower == '\t' || lower == '\n' || lower == '\r'){
+                    depth[i]++;
+                }
+            }
+
+            opening[i] = advance(alternative.open, opening[i], lower);
+            if(opening[i] == alternative.open.length){
+                opening[i] = 0;
+                opened[i] = true;
+            }
+
+            closing[i] = advance(alternative.close, closing[i], lower);
+            if(closing[i] == alternative.close.length){
+                closing[i] = 0;
+                return --depth[i] == 0;
+            }
+
+            return false;
+        }
+
+        /**
+         * Matches the next byte of a tag, the tags only have a '<' at their start
+         * so a mismatch can only ever restart the match.
+         * @param tag the tag.
+         * @param position how much of the tag has matched so far.
+         * @param current the current byte (in lower case).
+         * @return how much of the tag has matched now.
+         */
+        private static int advance(byte[] tag, int position, byte current){
+            if(tag[position] == current)
+                return position + 1;
+
+            return tag[0] == current ? 1 : 0;
+        }
+
+        private static int[] fallback(byte[] marker){
+            int[] fallback = new int[marker.length];
+            for(int i = 1, length = 0; i < marker.length; i++){
+                while(length > 0 && marker[i] != marker[length]){
+                    length = fallback[length - 1];
+                }
+
+                if(marker[i] == marker[length]){
+                    length++;
+                }
+
+                fallback[i] = length;
+            }
+
+            return fallback;
+        }
+
+    }
+
+}
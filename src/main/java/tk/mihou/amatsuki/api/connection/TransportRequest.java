@@ -0,0 +1,76 @@
+package tk.mihou.amatsuki.api.connection;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TransportRequest {
+
+    private final String url;
+    private final int timeout;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private PageCutoff cutoff;
+
+    public TransportRequest(String url, int timeout) {
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Adds a header to the request, a header with the same name is replaced.
+     * @param name the name of the header.
+     * @param value the value of the header, null is ignored.
+     * @return TransportRequest for chain calling.
+     */
+    public TransportRequest setHeader(String name, String value){
+        if(value != null){
+            headers.put(name, value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Allows the transport to stop reading the body once the cutoff is reached,
+     * transports that don't support this can ignore it and read the whole body.
+     * @param cutoff where the part of the page that is read ends, null to read the whole body.
+     * @return TransportRequest for chain calling.
+     */
+    public TransportRequest setCutoff(PageCutoff cutoff){
+        this.cutoff = cutoff;
+        return this;
+    }
+
+    /**
+     * Retrieves where the transport can stop reading the body.
+     * @return the cutoff, null if the whole body has to be read.
+     */
+    public PageCutoff getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Retrieves the url that is requested.
+     * @return the url.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Retrieves the time limit of the request.
+     * @return the time limit (millis).
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Retrieves the headers of the request (User-Agent, Referer, etc.).
+     * @return the headers, this can't be modified.
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+}
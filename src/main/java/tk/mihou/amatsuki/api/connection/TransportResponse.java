@@ -0,0 +1,89 @@
+package tk.mihou.amatsuki.api.connection;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TransportResponse {
+
+    private final String url;
+    private final int status;
+    private final byte[] body;
+    private final String charset;
+    private final Map<String, String> headers;
+    private final boolean truncated;
+
+    public TransportResponse(String url, int status, byte[] body, String charset, Map<String, String> headers) {
+        this(url, status, body, charset, headers, false);
+    }
+
+    public TransportResponse(String url, int status, byte[] body, String charset, Map<String, String> headers, boolean truncated) {
+        this.url = url;
+        this.truncated = truncated;
+        this.status = status;
+        this.body = body;
+        this.charset = charset;
+
+        // Header names aren't case sensitive.
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.headers.putAll(headers);
+    }
+
+    /**
+     * Retrieves the url the body came from, which can differ from the requested url after a redirect.
+     * @return the url.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Retrieves the status code of the response.
+     * @return the status code.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Retrieves the decompressed body of the response.
+     * @return the body.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Checks whether the transport stopped reading the body at the cutoff of the request.
+     * @return does the body end at the cutoff instead of the end of the page?
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Retrieves the charset of the Content-Type header.
+     * @return the charset, null if the response didn't declare one.
+     */
+    public String getCharset() {
+        return charset;
+    }
+
+    /**
+     * Retrieves the first value of a header.
+     * @param name the name of the header, not case sensitive.
+     * @return the value of the header, null if there is none.
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Retrieves all the headers of the response.
+     * @return the headers, this can't be modified.
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+}
@@ -2,8 +2,9 @@ package tk.mihou.amatsuki.api.enums;
 
 public enum AmatsukiNames {
 
-    LATEST_SERIES("LATEST-SERIES-1"), LATEST_UPDATES("LATEST-UPDATES-1"), STORY_SEARCH("%s-AMATSUKI-SEARCH-STORY"), USER_SEARCH("%s-AMATSUKI-SEARCH-USER"),
-    RANKINGS("%s-%d"), SERIES_FINDER("SERIES-FINDER-%s");
+    LATEST_SERIES("LATEST-SERIES-1"), LATEST_UPDATES("LATEST-UPDATES-1"), LATEST_TOPICS("LATEST-TOPICS-1"), STORY_SEARCH("%s-AMATSUKI-SEARCH-STORY"), USER_SEARCH("%s-AMATSUKI-SEARCH-USER"),
+    RANKINGS("%s-%d"), SERIES_FINDER("SERIES-FINDER-%s"), HOMEPAGE("HOMEPAGE-1"),
+    STORY_FIELDS("%s-AMATSUKI-FIELDS"), SITE("%s-AMATSUKI-SITE-%s");
 
     public String format;
 
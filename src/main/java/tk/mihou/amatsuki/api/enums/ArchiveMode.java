@@ -0,0 +1,11 @@
+package tk.mihou.amatsuki.api.enums;
+
+public enum ArchiveMode {
+
+    // Pages are fetched from ScribbleHub and written into the archive.
+    RECORD,
+
+    // Pages are only read from the archive, pages that weren't recorded fail as if the request did.
+    REPLAY
+
+}
@@ -0,0 +1,21 @@
+package tk.mihou.amatsuki.api.enums;
+
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+public enum Endpoint {
+
+    STORY(CacheTypes.DEFAULT), USER(CacheTypes.DEFAULT), RANKINGS(CacheTypes.RANKINGS), LATEST_SERIES(CacheTypes.RANKINGS),
+    LATEST_UPDATES(CacheTypes.RANKINGS), LATEST_TOPICS(CacheTypes.RANKINGS), STORY_SEARCH(CacheTypes.SEARCH),
+    USER_SEARCH(CacheTypes.SEARCH), SERIES_FINDER(CacheTypes.SEARCH), HOMEPAGE(CacheTypes.RANKINGS);
+
+    private final CacheTypes type;
+
+    Endpoint(CacheTypes type){
+        this.type = type;
+    }
+
+    public CacheTypes getType(){
+        return type;
+    }
+
+}
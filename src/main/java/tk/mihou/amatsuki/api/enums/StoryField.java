@@ -0,0 +1,14 @@
+package tk.mihou.amatsuki.api.enums;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum StoryField {
+
+    // The url of a story is always known, RATING covers both the rating and the amount of ratings.
+    TITLE, SYNOPSIS, THUMBNAIL, CREATOR, RATING, VIEWS, FAVORITES, CHAPTERS, CHAPTERS_PER_WEEK, READERS, GENRES, TAGS, SID;
+
+    public static final Set<StoryField> ALL = Collections.unmodifiableSet(EnumSet.allOf(StoryField.class));
+
+}
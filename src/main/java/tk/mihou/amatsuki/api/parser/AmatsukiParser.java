@@ -0,0 +1,130 @@
+package tk.mihou.amatsuki.api.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AmatsukiParser {
+
+    /**
+     * Builds the entities from pages that were already downloaded, this goes through
+     * the same parsers as {@link tk.mihou.amatsuki.api.connection.AmatsukiConnector}
+     * but never touches the network nor the cache.
+     *
+     * The base URI is the URL the page was downloaded from, it is used to resolve
+     * relative links and as the url of stories and users.
+     */
+
+    /**
+     * Parses the page from its raw bytes, the charset is read from the page
+     * and falls back to UTF-8.
+     *
+     * @param type the type of the page.
+     * @param html the raw HTML.
+     * @param baseUri the URL the page was downloaded from.
+     * @param <T> the result of the page.
+     * @return the result.
+     */
+    public static <T> T parse(PageType<T> type, byte[] html, String baseUri){
+        try {
+            return parse(type, new ByteArrayInputStream(html), baseUri);
+        } catch (IOException e){
+            // Reading from memory never fails.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the page from a stream, the stream is read fully but not closed.
+     *
+     * @param type the type of the page.
+     * @param stream the stream of raw HTML.
+     * @param baseUri the URL the page was downloaded from.
+     * @param <T> the result of the page.
+     * @return the result.
+     * @throws IOException if the stream couldn't be read.
+     */
+    public static <T> T parse(PageType<T> type, InputStream stream, String baseUri) throws IOException {
+        return parse(type, Jsoup.parse(stream, null, baseUri), baseUri);
+    }
+
+    /**
+     * Parses the page from a file.
+     *
+     * @param type the type of the page.
+     * @param file the file containing the raw HTML.
+     * @param baseUri the URL the page was downloaded from.
+     * @param <T> the result of the page.
+     * @return the result.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static <T> T parse(PageType<T> type, Path file, String baseUri) throws IOException {
+        return parse(type, Jsoup.parse(file.toFile(), null, baseUri), baseUri);
+    }
+
+    /**
+     * Parses every file in the directory (and its subdirectories) across all
+     * the cores, pages that can't be read or parsed are logged and left out.
+     *
+     * @param type the type of the pages.
+     * @param directory the directory of the pages.
+     * @param baseUri computes the URL each file was downloaded from.
+     * @param <T> the result of the pages.
+     * @return the results by file.
+     * @throws IOException if the directory couldn't be listed.
+     */
+    public static <T> Map<Path, T> parseAll(PageType<T> type, Path directory, Function<Path, String> baseUri) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)){
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        Map<Path, T> results = new ConcurrentHashMap<>(files.size());
+        files.parallelStream().forEach(file -> {
+            try {
+                T result = parse(type, file, baseUri.apply(file));
+                if(result != null){
+                    results.put(file, result);
+                }
+            } catch (IOException | RuntimeException e){
+                Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: couldn't parse " + file + " as " + type + ": " + e);
+            }
+        });
+
+        return results;
+    }
+
+    /**
+     * Parses every file in the directory (and its subdirectories) across all
+     * the cores with the same base URI, e.g. a folder of ranking pages.
+     *
+     * @param type the type of the pages.
+     * @param directory the directory of the pages.
+     * @param baseUri the URL the pages were downloaded from.
+     * @param <T> the result of the pages.
+     * @return the results by file.
+     * @throws IOException if the directory couldn't be listed.
+     */
+    public static <T> Map<Path, T> parseAll(PageType<T> type, Path directory, String baseUri) throws IOException {
+        return parseAll(type, directory, file -> baseUri);
+    }
+
+    private static <T> T parse(PageType<T> type, Document doc, String baseUri){
+        return type.parse(doc, baseUri);
+    }
+
+}
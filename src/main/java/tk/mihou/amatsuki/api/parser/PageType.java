@@ -0,0 +1,64 @@
+package tk.mihou.amatsuki.api.parser;
+
+import org.jsoup.nodes.Document;
+import tk.mihou.amatsuki.entities.ForumThread;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.entities.user.lower.UserResults;
+import tk.mihou.amatsuki.impl.parser.HomepageParser;
+import tk.mihou.amatsuki.impl.parser.StoryParser;
+import tk.mihou.amatsuki.impl.parser.StoryResultsExtractor;
+import tk.mihou.amatsuki.impl.parser.UserParser;
+import tk.mihou.amatsuki.impl.parser.UserResultsExtractor;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+public final class PageType<T> {
+
+    /**
+     * The kinds of ScribbleHub pages that {@link AmatsukiParser} can read,
+     * together with what each of them is parsed into.
+     */
+
+    // A story page, the base URI is used as the url of the story.
+    public static final PageType<Story> STORY = new PageType<>("STORY", StoryParser::parse);
+
+    // A profile page, the base URI is used as the url of the user.
+    public static final PageType<User> USER = new PageType<>("USER", UserParser::parse);
+
+    // A page with result boxes: the story search, rankings, latest series and series finder.
+    public static final PageType<List<StoryResults>> STORY_RESULTS = new PageType<>("STORY_RESULTS", (doc, uri) -> StoryResultsExtractor.extract(doc));
+
+    // The users of a search page.
+    public static final PageType<List<UserResults>> USER_RESULTS = new PageType<>("USER_RESULTS", (doc, uri) -> UserResultsExtractor.extract(doc));
+
+    // The latest updates of the homepage.
+    public static final PageType<List<LatestUpdatesResult>> LATEST_UPDATES = new PageType<>("LATEST_UPDATES", (doc, uri) -> HomepageParser.latestUpdates(doc));
+
+    // The latest forum topics of the homepage.
+    public static final PageType<List<ForumThread>> LATEST_TOPICS = new PageType<>("LATEST_TOPICS", (doc, uri) -> HomepageParser.latestTopics(doc));
+
+    // The homepage, both the latest topics and the latest updates.
+    public static final PageType<HomepageSnapshot> HOMEPAGE = new PageType<>("HOMEPAGE", (doc, uri) -> HomepageParser.snapshot(doc));
+
+    private final String name;
+    private final BiFunction<Document, String, T> parser;
+
+    private PageType(String name, BiFunction<Document, String, T> parser){
+        this.name = name;
+        this.parser = parser;
+    }
+
+    T parse(Document doc, String baseUri){
+        return parser.apply(doc, baseUri);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
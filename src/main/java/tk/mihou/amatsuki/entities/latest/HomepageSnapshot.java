@@ -0,0 +1,45 @@
+package tk.mihou.amatsuki.entities.latest;
+
+import tk.mihou.amatsuki.entities.ForumThread;
+
+import java.util.List;
+
+public class HomepageSnapshot {
+
+    /**
+     * Everything Amatsuki reads from the ScribbleHub homepage, parsed
+     * from a single download and cached as one unit.
+     */
+
+    private final List<ForumThread> latestTopics;
+    private final List<LatestUpdatesResult> latestUpdates;
+
+    public HomepageSnapshot(List<ForumThread> latestTopics, List<LatestUpdatesResult> latestUpdates) {
+        this.latestTopics = latestTopics;
+        this.latestUpdates = latestUpdates;
+    }
+
+    /**
+     * The latest forum topics of the homepage.
+     * @return the latest topics.
+     */
+    public List<ForumThread> getLatestTopics() {
+        return latestTopics;
+    }
+
+    /**
+     * The latest updates of the homepage.
+     * @return the latest updates.
+     */
+    public List<LatestUpdatesResult> getLatestUpdates() {
+        return latestUpdates;
+    }
+
+    @Override
+    public String toString() {
+        return "HomepageSnapshot{" +
+                "latestTopics=" + latestTopics.size() +
+                ", latestUpdates=" + latestUpdates.size() +
+                '}';
+    }
+}
@@ -1,7 +1,13 @@
 package tk.mihou.amatsuki.entities.story;
 
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.impl.parser.NumberParser;
+
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public class Story {
 
@@ -12,6 +18,7 @@ public class Story {
     private final int sid;
     private final String creator;
     private final String views;
+    private final long totalViews;
     private final Double rating;
     private final long favorites;
     private final int chapters;
@@ -20,9 +27,17 @@ public class Story {
     private final int ratings;
     private final List<String> genres;
     private final List<String> tags;
+    private final Set<StoryField> fields;
 
     public Story(String title, String synopsis, String url, String image, String creator, Double rating, String views,
                  long favorites, int chapters, int chw, int ratings, int readers, List<String> genres, List<String> tags, int sid) {
+        this(title, synopsis, url, image, creator, rating, views, favorites, chapters, chw, ratings, readers, genres, tags, sid, StoryField.ALL);
+    }
+
+    public Story(String title, String synopsis, String url, String image, String creator, Double rating, String views,
+                 long favorites, int chapters, int chw, int ratings, int readers, List<String> genres, List<String> tags, int sid,
+                 Set<StoryField> fields) {
+        this.fields = fields == StoryField.ALL || fields.containsAll(StoryField.ALL) ? StoryField.ALL : copy(fields);
         this.title = title;
         this.synopsis = synopsis;
         this.url = url;
@@ -30,6 +45,7 @@ public class Story {
         this.creator = creator;
         this.rating = rating;
         this.views = views;
+        this.totalViews = NumberParser.parseLong(views, 0);
         this.favorites = favorites;
         this.chapters = chapters;
         this.chw = chw;
@@ -40,6 +56,38 @@ public class Story {
         this.sid = sid;
     }
 
+    private static Set<StoryField> copy(Set<StoryField> fields){
+        EnumSet<StoryField> copy = EnumSet.noneOf(StoryField.class);
+        copy.addAll(fields);
+        return Collections.unmodifiableSet(copy);
+    }
+
+    /**
+     * Retrieves the fields that were read from the page, the others are left
+     * empty (null or 0) when the story was requested with only some of its fields.
+     * @return the fields of the story.
+     */
+    public Set<StoryField> getFields(){
+        return fields;
+    }
+
+    /**
+     * Checks whether every field of the story was read from the page.
+     * @return is the story complete?
+     */
+    public boolean isComplete(){
+        return fields.size() == StoryField.ALL.size();
+    }
+
+    /**
+     * Checks whether the story holds every one of the fields.
+     * @param fields the fields that are needed.
+     * @return were all of the fields read?
+     */
+    public boolean hasFields(Set<StoryField> fields){
+        return this.fields.containsAll(fields);
+    }
+
     /**
      * Retrieves the story's RSS feed.
      * @return RSS feed.
@@ -128,6 +176,14 @@ public class Story {
         return views;
     }
 
+    /**
+     * Gets the total view count of the story as a number, e.g. 12300 for 12.3k.
+     * @return the total view count of the story.
+     */
+    public long getTotalViews() {
+        return totalViews;
+    }
+
     /**
      * Gets the total favorites of the story.
      * @return the total favorites of the story.
@@ -177,12 +233,12 @@ public class Story {
                 chw == story.chw &&
                 readers == story.readers &&
                 ratings == story.ratings &&
-                title.equals(story.title) &&
+                Objects.equals(title, story.title) &&
                 Objects.equals(synopsis, story.synopsis) &&
                 Objects.equals(url, story.url) &&
                 Objects.equals(image, story.image) &&
-                creator.equals(story.creator) &&
-                rating.equals(story.rating) &&
+                Objects.equals(creator, story.creator) &&
+                Objects.equals(rating, story.rating) &&
                 Objects.equals(views, story.views) &&
                 Objects.equals(favorites, story.favorites);
     }
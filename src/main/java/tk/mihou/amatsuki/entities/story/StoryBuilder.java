@@ -1,6 +1,10 @@
 package tk.mihou.amatsuki.entities.story;
 
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.impl.parser.NumberParser;
+
 import java.util.List;
+import java.util.Set;
 
 public class StoryBuilder {
 
@@ -11,6 +15,7 @@ public class StoryBuilder {
     private List<String> genres;
     private List<String> tags;
     private int sid;
+    private Set<StoryField> fields = StoryField.ALL;
 
     public void setTitle(String title) {
         this.title = title;
@@ -41,7 +46,7 @@ public class StoryBuilder {
     }
 
     public void setFavorites(String favorites) {
-        this.favorites = Long.parseLong(favorites);
+        this.favorites = NumberParser.parseLong(favorites);
     }
 
     public void setChapters(int chapters) {
@@ -72,8 +77,12 @@ public class StoryBuilder {
         this.sid = sid;
     }
 
+    public void setFields(Set<StoryField> fields){
+        this.fields = fields;
+    }
+
     public Story build(){
-        return new Story(title, synopsis, url, image, creator, rating, views, favorites, chapters, chapterPerWeek, ratings, readers, genres, tags, sid);
+        return new Story(title, synopsis, url, image, creator, rating, views, favorites, chapters, chapterPerWeek, ratings, readers, genres, tags, sid, fields);
     }
 
 }
@@ -2,6 +2,7 @@ package tk.mihou.amatsuki.entities.story.lower;
 
 import tk.mihou.amatsuki.api.Amatsuki;
 import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.impl.parser.NumberParser;
 
 import java.util.List;
 import java.util.Objects;
@@ -18,6 +19,7 @@ public class StoryResults {
     private List<String> genres;
     private String creator;
     private String views;
+    private long totalViews;
     private Double rating;
     private long favorites;
     private int chapters;
@@ -26,6 +28,7 @@ public class StoryResults {
     private int reviews;
     private String lastUpdated;
     private String word;
+    private long totalWords;
     private String authorURL;
 
     public StoryResults(String name, String thumbnail, String url, String shortSynopsis, String fullSynopsis, List<String> genres, String creator,
@@ -38,6 +41,7 @@ public class StoryResults {
         this.genres = genres;
         this.creator = creator;
         this.views = views;
+        this.totalViews = NumberParser.parseLong(views, 0);
         this.rating = rating;
         this.favorites = favorites;
         this.chapters = chapters;
@@ -46,6 +50,7 @@ public class StoryResults {
         this.reviews = reviews;
         this.lastUpdated = lastUpdated;
         this.word = word;
+        this.totalWords = NumberParser.parseLong(word, 0);
         this.authorURL = authorURL;
     }
 
@@ -65,6 +70,14 @@ public class StoryResults {
         return word;
     }
 
+    /**
+     * Returns the word count as a number. (e.g: 7700)
+     * @return the word count.
+     */
+    public long getTotalWords(){
+        return totalWords;
+    }
+
     /**
      * Retrieves the short synopsis.
      * @return the short synopsis.
@@ -105,6 +118,14 @@ public class StoryResults {
         return views;
     }
 
+    /**
+     * Retrieves the view count of the story as a number, e.g. 12300 for 12.3k.
+     * @return the view count.
+     */
+    public long getTotalViews() {
+        return totalViews;
+    }
+
     /**
      * Retrieves the rating of the story.
      * @return the rating.
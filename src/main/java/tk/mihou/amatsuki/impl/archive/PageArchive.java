@@ -0,0 +1,209 @@
+package tk.mihou.amatsuki.impl.archive;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class PageArchive implements Closeable {
+
+    /**
+     * An on-disk archive of the pages that were downloaded, used to record the
+     * network once and replay it afterwards without touching ScribbleHub.
+     *
+     * The pages are content-addressed, every distinct body is stored once under
+     * objects/[first two characters of its SHA-256]/[rest of it].gz, and the index
+     * (index.tsv) records every fetch as: [fetched at millis]\t[sha-256]\t[url].
+     */
+
+    private static final String INDEX_NAME = "index.tsv";
+    private static final String OBJECTS_NAME = "objects";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final Map<String, NavigableMap<Long, String>> index = new ConcurrentHashMap<>();
+    private final Writer writer;
+
+    private PageArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory.resolve(OBJECTS_NAME));
+
+        Path indexFile = directory.resolve(INDEX_NAME);
+        if(Files.exists(indexFile)){
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)){
+                String line;
+                while((line = reader.readLine()) != null){
+                    String[] parts = line.split("\t", 3);
+
+                    // A line that was cut short by a crash, the object may not exist either.
+                    if(parts.length < 3)
+                        continue;
+
+                    put(parts[2], Long.parseLong(parts[0]), parts[1]);
+                }
+            }
+        }
+
+        this.writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Opens (or creates) the archive inside the directory.
+     * @param directory the directory of the archive.
+     * @return the archive.
+     * @throws IOException if the index couldn't be read or opened.
+     */
+    public static PageArchive open(Path directory) throws IOException {
+        return new PageArchive(directory);
+    }
+
+    /**
+     * Records a page that was fetched just now.
+     * @param url the URL the page was fetched from.
+     * @param body the raw body of the page.
+     * @throws IOException if the page couldn't be written.
+     */
+    public void record(String url, byte[] body) throws IOException {
+        record(url, body, System.currentTimeMillis());
+    }
+
+    /**
+     * Records a page, bodies that were already archived are only added to the index.
+     * @param url the URL the page was fetched from.
+     * @param body the raw body of the page.
+     * @param fetchedAt when the page was fetched (millis since epoch).
+     * @throws IOException if the page couldn't be written.
+     */
+    public void record(String url, byte[] body, long fetchedAt) throws IOException {
+        String hash = hash(body);
+        Path object = object(hash);
+        if(!Files.exists(object)){
+            Files.createDirectories(object.getParent());
+
+            // Written aside first so that a crash never leaves a truncated object behind.
+            Path temporary = Files.createTempFile(object.getParent(), hash, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))){
+                out.write(body);
+            }
+
+            try {
+                Files.move(temporary, object, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e){
+                Files.move(temporary, object, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        synchronized (writer){
+            writer.write(fetchedAt + "\t" + hash + "\t" + url + "\n");
+            writer.flush();
+        }
+
+        put(url, fetchedAt, hash);
+    }
+
+    /**
+     * Reads the latest body that was recorded for the URL.
+     * @param url the URL of the page.
+     * @return the raw body, null if the URL was never recorded.
+     * @throws IOException if the page couldn't be read.
+     */
+    public byte[] read(String url) throws IOException {
+        return read(url, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the body of the URL as it was at the given time, which is the
+     * latest body that was fetched at or before that time.
+     *
+     * @param url the URL of the page.
+     * @param at the time (millis since epoch).
+     * @return the raw body, null if the URL wasn't recorded by then.
+     * @throws IOException if the page couldn't be read.
+     */
+    public byte[] read(String url, long at) throws IOException {
+        NavigableMap<Long, String> fetches = index.get(url);
+        if(fetches == null)
+            return null;
+
+        Map.Entry<Long, String> fetch = fetches.floorEntry(at);
+        if(fetch == null)
+            return null;
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(object(fetch.getValue())))){
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = in.read(buffer)) != -1){
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Checks whether the URL was recorded.
+     * @param url the URL of the page.
+     * @return was the URL recorded?
+     */
+    public boolean contains(String url){
+        return index.containsKey(url);
+    }
+
+    /**
+     * Retrieves every URL that was recorded.
+     * @return the recorded URLs.
+     */
+    public Set<String> urls(){
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Retrieves the directory of the archive.
+     * @return the directory.
+     */
+    public Path getDirectory(){
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer){
+            writer.close();
+        }
+    }
+
+    private void put(String url, long fetchedAt, String hash){
+        index.computeIfAbsent(url, key -> new ConcurrentSkipListMap<>()).put(fetchedAt, hash);
+    }
+
+    private Path object(String hash){
+        return directory.resolve(OBJECTS_NAME).resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ".gz");
+    }
+
+    private static String hash(byte[] body){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            char[] chars = new char[digest.length * 2];
+            for(int i = 0; i < digest.length; i++){
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e){
+            // Every JVM is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
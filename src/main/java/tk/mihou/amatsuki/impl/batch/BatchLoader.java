@@ -0,0 +1,169 @@
+package tk.mihou.amatsuki.impl.batch;
+
+import tk.mihou.amatsuki.api.batch.BatchOptions;
+import tk.mihou.amatsuki.api.batch.BatchResult;
+import tk.mihou.amatsuki.impl.executor.AmatsukiExecutors;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BatchLoader<T> {
+
+    /**
+     * Fetches a batch of urls: duplicates are dropped, cached entries are served right away
+     * and the rest are fetched with at most N requests in-flight, started no faster than
+     * the rate allows. No thread is blocked while waiting, requests that have to wait for
+     * the rate are started through the shared scheduler.
+     */
+
+    private final BatchOptions options;
+    private final Consumer<BatchResult<T>> listener;
+    private final Function<String, CompletableFuture<T>> fetch;
+    private final List<String> urls;
+    private final Map<String, BatchResult<T>> results = new ConcurrentHashMap<>();
+    private final CompletableFuture<Map<String, BatchResult<T>>> done = new CompletableFuture<>();
+    private final AtomicInteger remaining;
+
+    // Guarded by the queue.
+    private final Queue<String> queue = new ArrayDeque<>();
+    private int inflight;
+    private long nextStart = System.nanoTime();
+
+    private BatchLoader(List<String> urls, BatchOptions options, Consumer<BatchResult<T>> listener, Function<String, CompletableFuture<T>> fetch) {
+        this.urls = urls;
+        this.options = options;
+        this.listener = listener;
+        this.fetch = fetch;
+        this.remaining = new AtomicInteger(urls.size());
+    }
+
+    /**
+     * Fetches every url of the batch.
+     *
+     * @param urls the urls, duplicates and nulls are ignored.
+     * @param options the concurrency, rate and timeout of the batch.
+     * @param listener called with every result as soon as it is ready, can be null.
+     * @param cache retrieves the cached entity of a url, null if it isn't cached.
+     * @param fetch fetches the entity of a url, failing exceptionally when it can't.
+     * @param <T> the type of the entities.
+     * @return every result keyed by url, in the order the urls were given.
+     */
+    public static <T> CompletableFuture<Map<String, BatchResult<T>>> load(Collection<String> urls, BatchOptions options, Consumer<BatchResult<T>> listener,
+                                                                          Function<String, T> cache, Function<String, CompletableFuture<T>> fetch){
+        Set<String> unique = new LinkedHashSet<>(urls);
+        unique.remove(null);
+
+        BatchLoader<T> loader = new BatchLoader<>(new ArrayList<>(unique), options, listener, fetch);
+        if(unique.isEmpty()){
+            loader.done.complete(new LinkedHashMap<>());
+            return loader.done;
+        }
+
+        List<String> misses = new ArrayList<>();
+        for(String url : unique){
+            T value = cache.apply(url);
+            if(value != null){
+                loader.complete(new BatchResult<>(url, value, null, true));
+            } else {
+                misses.add(url);
+            }
+        }
+
+        synchronized (loader.queue){
+            loader.queue.addAll(misses);
+        }
+
+        loader.pump();
+        return loader.done;
+    }
+
+    /**
+     * Starts as many queued requests as the concurrency allows, delaying the ones
+     * that would go over the rate.
+     */
+    private void pump(){
+        Map<String, Long> starts = new LinkedHashMap<>();
+        synchronized (queue){
+            while(inflight < options.getConcurrency() && !queue.isEmpty()){
+                inflight++;
+                starts.put(queue.poll(), reserve());
+            }
+        }
+
+        // Started outside of the lock since a request may complete (and pump) right away.
+        starts.forEach((url, delay) -> {
+            if(delay <= 0){
+                start(url);
+            } else {
+                AmatsukiExecutors.scheduler().schedule(() -> start(url), delay, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Reserves the next slot of the rate.
+     * @return how long to wait before starting the request (nanos).
+     */
+    private long reserve(){
+        if(options.getRate() <= 0)
+            return 0;
+
+        long now = System.nanoTime();
+        long start = Math.max(now, nextStart);
+        nextStart = start + (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate());
+        return start - now;
+    }
+
+    private void start(String url){
+        CompletableFuture<T> request;
+        try {
+            request = fetch.apply(url);
+        } catch (RuntimeException e) {
+            request = new CompletableFuture<>();
+            request.completeExceptionally(e);
+        }
+
+        request.whenComplete((value, throwable) -> {
+            Throwable error = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if(error == null && value == null){
+                error = new NoSuchElementException("Amatsuki: " + url + " returned nothing.");
+            }
+
+            complete(new BatchResult<>(url, value, error, false));
+            synchronized (queue){
+                inflight--;
+            }
+
+            pump();
+        });
+    }
+
+    private void complete(BatchResult<T> result){
+        results.put(result.getUrl(), result);
+        if(listener != null){
+            try {
+                listener.accept(result);
+            } catch (RuntimeException e) {
+                Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: the batch listener threw an exception: " + e.getMessage());
+            }
+        }
+
+        if(remaining.decrementAndGet() == 0){
+            Map<String, BatchResult<T>> ordered = new LinkedHashMap<>();
+            for(String url : urls){
+                ordered.put(url, results.get(url));
+            }
+
+            done.complete(ordered);
+        }
+    }
+
+}
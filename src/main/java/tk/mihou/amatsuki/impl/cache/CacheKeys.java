@@ -0,0 +1,156 @@
+package tk.mihou.amatsuki.impl.cache;
+
+import tk.mihou.amatsuki.api.enums.AmatsukiNames;
+import tk.mihou.amatsuki.api.enums.OrderBy;
+import tk.mihou.amatsuki.api.enums.Rankings;
+import tk.mihou.amatsuki.api.enums.StoryField;
+
+import java.util.Set;
+
+public class CacheKeys {
+
+    /**
+     * Builds the cache keys of {@link AmatsukiNames} without going through
+     * String.format on every request, the ranking keys are computed once
+     * since there is only a handful of them.
+     *
+     * The keys of pages that are requested from the base url of a connector carry the site
+     * (unless it is the default site) so that connectors pointed at different sites, e.g. a stub
+     * server and ScribbleHub, never share cached entries or requests.
+     */
+
+    public static final String DEFAULT_SITE = "https://www.scribblehub.com";
+
+    private static final String[][] rankings = new String[Rankings.values().length][OrderBy.values().length];
+
+    // The parts of the formats that surround the query.
+    private static final String storySearch = suffix(AmatsukiNames.STORY_SEARCH);
+    private static final String userSearch = suffix(AmatsukiNames.USER_SEARCH);
+    private static final String seriesFinder = prefix(AmatsukiNames.SERIES_FINDER);
+    private static final String storyFields = suffix(AmatsukiNames.STORY_FIELDS);
+    private static final String site = infix(AmatsukiNames.SITE);
+
+    static {
+        for(Rankings ranking : Rankings.values()){
+            for(OrderBy order : OrderBy.values()){
+                rankings[ranking.ordinal()][order.ordinal()] = String.format(AmatsukiNames.RANKINGS.getFormat(), ranking.getIdentifier(), order.getLocation());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the cache key of a ranking.
+     * @param site the base url the ranking is requested from.
+     * @param ranking the ranking.
+     * @param order the time order of the ranking.
+     * @return the cache key.
+     */
+    public static String ranking(String site, Rankings ranking, OrderBy order){
+        return on(site, rankings[ranking.ordinal()][order.ordinal()]);
+    }
+
+    /**
+     * Retrieves the cache key of a story search.
+     * @param site the base url the search is requested from.
+     * @param query the keyword that was queried.
+     * @return the cache key.
+     */
+    public static String storySearch(String site, String query){
+        return on(site, query + storySearch);
+    }
+
+    /**
+     * Retrieves the cache key of a user search.
+     * @param site the base url the search is requested from.
+     * @param query the keyword that was queried.
+     * @return the cache key.
+     */
+    public static String userSearch(String site, String query){
+        return on(site, query + userSearch);
+    }
+
+    /**
+     * Retrieves the cache key of the homepage.
+     * @param site the base url the homepage is requested from.
+     * @return the cache key.
+     */
+    public static String homepage(String site){
+        return on(site, AmatsukiNames.HOMEPAGE.getFormat());
+    }
+
+    /**
+     * Retrieves the cache key of the latest series.
+     * @param site the base url the latest series are requested from.
+     * @return the cache key.
+     */
+    public static String latestSeries(String site){
+        return on(site, AmatsukiNames.LATEST_SERIES.getFormat());
+    }
+
+    /**
+     * Retrieves the cache key of a series finder search.
+     * @param url the url of the search.
+     * @return the cache key.
+     */
+    public static String seriesFinder(String url){
+        return seriesFinder + url;
+    }
+
+    /**
+     * Retrieves the cache key of a story that was fetched with only some of its fields,
+     * whole stories are cached under their url. Every partial story of a url shares one key,
+     * the cached story records which fields it holds (see {@link tk.mihou.amatsuki.entities.story.Story#getFields()}).
+     * @param url the url of the story.
+     * @param fields the fields of the story.
+     * @return the cache key.
+     */
+    public static String story(String url, Set<StoryField> fields){
+        if(fields.containsAll(StoryField.ALL))
+            return url;
+
+        return url + storyFields;
+    }
+
+    /**
+     * Retrieves the key that requests for some fields of a story are shared under,
+     * unlike the cache key this tells apart every set of fields.
+     * @param url the url of the story.
+     * @param fields the fields that are requested.
+     * @return the request key.
+     */
+    public static String storyRequest(String url, Set<StoryField> fields){
+        if(fields.containsAll(StoryField.ALL))
+            return url;
+
+        int mask = 0;
+        for(StoryField field : fields){
+            mask |= 1 << field.ordinal();
+        }
+
+        return url + storyFields + "-" + Integer.toHexString(mask);
+    }
+
+    /**
+     * Adds the site to the key, keys of the default site are left as they are
+     * which keeps the entries of existing disk caches readable.
+     * @param site the base url of the page.
+     * @param key the key of the page.
+     * @return the key of the page on the site.
+     */
+    private static String on(String site, String key){
+        return DEFAULT_SITE.equals(site) ? key : site + CacheKeys.site + key;
+    }
+
+    private static String suffix(AmatsukiNames name){
+        return name.getFormat().substring(name.getFormat().indexOf("%s") + 2);
+    }
+
+    private static String prefix(AmatsukiNames name){
+        return name.getFormat().substring(0, name.getFormat().indexOf("%s"));
+    }
+
+    private static String infix(AmatsukiNames name){
+        return name.getFormat().substring(name.getFormat().indexOf("%s") + 2, name.getFormat().lastIndexOf("%s"));
+    }
+
+}
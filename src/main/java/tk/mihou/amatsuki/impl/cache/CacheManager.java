@@ -1,12 +1,20 @@
 package tk.mihou.amatsuki.impl.cache;
 
+import tk.mihou.amatsuki.api.enums.Endpoint;
+import tk.mihou.amatsuki.impl.cache.disk.DiskCache;
 import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
+import tk.mihou.amatsuki.impl.cache.entities.Validators;
 import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+import tk.mihou.amatsuki.impl.cache.stats.CacheStatistics;
+import tk.mihou.amatsuki.impl.cache.stats.CacheStatisticsSnapshot;
+import tk.mihou.amatsuki.impl.cache.stats.StatisticsSnapshot;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CacheManager {
 
@@ -16,24 +24,48 @@ public class CacheManager {
      */
 
     // The time unit to use for calculations.
-    public static TimeUnit unit = TimeUnit.HOURS;
+    public static volatile TimeUnit unit = TimeUnit.HOURS;
 
     // The lifespan of the objects.
     public static AtomicInteger lifespan = new AtomicInteger(1);
     public static AtomicInteger ranking = new AtomicInteger(6);
 
+    // The maximum amount of entries the cache can hold before evicting.
+    public static AtomicInteger maximumSize = new AtomicInteger(10000);
+
+    // Whether expired entities can still be served while they are refreshed, and for how long (millis).
+    public static AtomicBoolean staleWhileRevalidate = new AtomicBoolean(false);
+    public static AtomicLong maxStaleness = new AtomicLong(TimeUnit.MINUTES.toMillis(30));
+
+    // How long expired entities with validators are kept (millis), so their page can be revalidated instead of parsed again.
+    public static AtomicLong revalidationWindow = new AtomicLong(TimeUnit.HOURS.toMillis(24));
+
     // The status of the CacheManager (DEFAULT)
     public static AtomicBoolean enabled = new AtomicBoolean(true);
     public static AtomicBoolean search = new AtomicBoolean(true);
     public static AtomicBoolean rankings = new AtomicBoolean(true);
 
-    static final Map<String, CacheEntity> genericCache = new HashMap<>();
+    // The optional second tier, entities missing from memory are looked up here.
+    private static volatile DiskCache disk;
 
-    public static <T> T getCache(Class expected, String key){
-        if(genericCache.containsKey(key)){
-            if(genericCache.get(key).sameType(expected)){
-                return (T) genericCache.get(key).get();
-            }
+    // Reads are lock-free, every writer evicts what it pushed over the limit.
+    static final Map<String, CacheEntity<?>> genericCache = new ConcurrentHashMap<>();
+
+    // How many entries are compared to pick the one to evict (sampled LRU).
+    private static final int SAMPLES = 8;
+
+    // The entries are sampled from where the previous eviction stopped, so over many
+    // evictions the whole cache is swept (like a clock hand) without ever sorting it.
+    private static final Object sampling = new Object();
+    private static Iterator<Map.Entry<String, CacheEntity<?>>> cursor = Collections.emptyIterator();
+
+    public static <T> T getCache(Class<?> expected, String key){
+        CacheEntity<?> entity = lookup(key);
+        if(entity != null && entity.sameType(expected)){
+            // The caller picks T, the check above is all that can be done at runtime.
+            @SuppressWarnings("unchecked")
+            T value = (T) entity.get();
+            return value;
         }
 
         // We can't use optionals, so we use nulls instead.
@@ -41,10 +73,9 @@ public class CacheManager {
     }
 
     public static List<?> getList(String key){
-        if(genericCache.containsKey(key)){
-            if(genericCache.get(key).isList()){
-                return (List<?>) genericCache.get(key).getList();
-            }
+        CacheEntity<?> entity = lookup(key);
+        if(entity != null && entity.isList()){
+            return entity.getList();
         }
 
         // We can't use optionals, so we use nulls instead.
@@ -52,49 +83,427 @@ public class CacheManager {
     }
 
     public static boolean isCached(String key){
-        return genericCache.containsKey(key) && !genericCache.get(key).isInvalid();
+        return lookup(key) != null;
+    }
+
+    /**
+     * Retrieves the entity of the key if it is still valid, expired
+     * entities are removed from the cache once they are found.
+     *
+     * @param key the key of the entity.
+     * @return the valid entity, null if there is none.
+     */
+    private static CacheEntity<?> lookup(String key){
+        CacheEntity<?> entity = find(key, true);
+        if(entity == null)
+            return null;
+
+        if(entity.isInvalid()){
+            // Only remove the entity we looked at, another thread may have replaced it already.
+            if(!isServable(entity) && !isRevalidatable(entity)){
+                expire(key, entity);
+            }
+            return null;
+        }
+
+        entity.access();
+        return entity;
+    }
+
+    /**
+     * Retrieves the entity of the key even if it has expired, as long as it is still
+     * within the maximum staleness when stale-while-revalidate is enabled. Callers can
+     * check {@link CacheEntity#isInvalid()} to know whether the entity needs a refresh.
+     *
+     * @param key the key of the entity.
+     * @return the entity, null if there is none or it is too stale to serve.
+     */
+    public static CacheEntity<?> getEntity(String key){
+        return getEntity(key, true);
+    }
+
+    /**
+     * Same as {@link #getEntity(String)}, except that the disk cache can be left out
+     * for callers that must never wait on file I/O.
+     *
+     * @param key the key of the entity.
+     * @param disk should the disk cache be read when the entity isn't in memory?
+     * @return the entity, null if there is none or it is too stale to serve.
+     */
+    public static CacheEntity<?> getEntity(String key, boolean disk){
+        CacheEntity<?> entity = find(key, disk);
+        if(entity == null)
+            return null;
+
+        if(!isServable(entity)){
+            if(!isRevalidatable(entity)){
+                expire(key, entity);
+            }
+            return null;
+        }
+
+        entity.access();
+        return entity;
+    }
+
+    /**
+     * Retrieves the entity of the key as long as it can be revalidated, even if it
+     * has expired, so the request for its page can be made conditional.
+     *
+     * @param key the key of the entity.
+     * @return the entity, null if there is none or it has no validators.
+     */
+    public static CacheEntity<?> getRevalidatable(String key){
+        CacheEntity<?> entity = genericCache.get(key);
+        if(entity == null || entity.getValidators() == null)
+            return null;
+
+        return isServable(entity) || isRevalidatable(entity) ? entity : null;
+    }
+
+    /**
+     * Extends the life of an entity whose page turned out to be unchanged, the
+     * entity is put back into the cache if it was removed in the meantime.
+     *
+     * @param key the key of the entity.
+     * @param entity the entity to renew.
+     * @param validators the validators of the page that was just checked.
+     */
+    public static void renew(String key, CacheEntity<?> entity, Validators validators){
+        entity.setValidators(validators);
+        entity.renew();
+
+        // A newer entity that was stored while the page was being checked wins.
+        CacheEntity<?> current = genericCache.putIfAbsent(key, entity);
+        if(current == null || current == entity){
+            persist(key, entity);
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Attaches the validators of a page to the entity that was just parsed from it.
+     *
+     * @param key the key of the entity.
+     * @param value the value that was parsed, the validators are only attached if it is still the cached value.
+     * @param validators the validators of the page.
+     */
+    public static void setValidators(String key, Object value, Validators validators){
+        CacheEntity<?> entity = genericCache.get(key);
+        if(entity != null && entity.value() == value){
+            entity.setValidators(validators);
+        }
+    }
+
+    /**
+     * Retrieves the entity from memory, or from the disk cache when it isn't in memory,
+     * entities found on disk are put back into memory.
+     *
+     * @param key the key of the entity.
+     * @param disk should the disk cache be read when the entity isn't in memory?
+     * @return the entity, null if there is none.
+     */
+    private static CacheEntity<?> find(String key, boolean disk){
+        CacheEntity<?> entity = genericCache.get(key);
+        DiskCache second = disk ? CacheManager.disk : null;
+        if(entity != null || second == null)
+            return entity;
+
+        entity = second.read(key);
+        if(entity == null || !isServable(entity))
+            return null;
+
+        CacheEntity<?> existing = genericCache.putIfAbsent(key, entity);
+        if(existing != null)
+            return existing;
+
+        evictIfNeeded();
+        return entity;
+    }
+
+    /**
+     * Adds a disk cache behind the memory cache, stories, users, story results and
+     * latest updates are written to it in the background and read back once they
+     * are missing from memory (e.g. after a restart). Passing null removes the disk cache.
+     *
+     * @param cache the disk cache to use.
+     */
+    public static void setDiskCache(DiskCache cache){
+        DiskCache previous = disk;
+        disk = cache;
+
+        if(previous != null && previous != cache){
+            previous.close();
+        }
+    }
+
+    /**
+     * Retrieves when the entity of the key expires without marking it as used.
+     * @param key the key of the entity.
+     * @return the expiry time (epoch millis), -1 if the key isn't cached.
+     */
+    public static long getExpiry(String key){
+        CacheEntity<?> entity = genericCache.get(key);
+        return entity == null ? -1 : entity.getExpiry();
+    }
+
+    /**
+     * Checks whether the entity can still be served, which is either when
+     * it hasn't expired or when it is stale but within the maximum staleness.
+     *
+     * @param entity the entity to check.
+     * @return can the entity be served?
+     */
+    private static boolean isServable(CacheEntity<?> entity){
+        if(!entity.isInvalid())
+            return true;
+
+        return staleWhileRevalidate.get() && entity.getStaleness() <= maxStaleness.get();
+    }
+
+    /**
+     * Checks whether the expired entity is still kept so its page can be revalidated.
+     * @param entity the entity to check.
+     * @return can the entity be revalidated?
+     */
+    private static boolean isRevalidatable(CacheEntity<?> entity){
+        return entity.getValidators() != null && entity.getStaleness() <= revalidationWindow.get();
+    }
+
+    /**
+     * Sets how long expired entities are kept around so that their page can be revalidated
+     * (a conditional request) instead of downloaded and parsed again, 0 disables this.
+     * @param window how long past its expiry an entity is kept.
+     * @param unit the time unit of the window.
+     */
+    public static void setRevalidationWindow(long window, TimeUnit unit){
+        revalidationWindow.set(unit.toMillis(window));
+    }
+
+    /**
+     * Checks whether the cache type is enabled.
+     * @param type the cache type.
+     * @return is the cache type enabled?
+     */
+    public static boolean isEnabled(CacheTypes type){
+        switch (type){
+            case RANKINGS:
+                return rankings.get();
+            case SEARCH:
+                return search.get();
+            default:
+                return enabled.get();
+        }
+    }
+
+    /**
+     * Enables or disables serving expired entities while they are being refreshed.
+     * @param enable should stale entities be served?
+     * @param staleness how long past its expiry an entity can still be served.
+     * @param unit the time unit of the staleness.
+     */
+    public static void setStaleWhileRevalidate(boolean enable, long staleness, TimeUnit unit){
+        maxStaleness.set(unit.toMillis(staleness));
+        staleWhileRevalidate.set(enable);
     }
 
     public static <T> T addCache(T entity, String key){
-        genericCache.put(key, new CacheEntity<>(entity, key));
+        store(key, new CacheEntity<>(entity, key));
         return entity;
     }
 
     public static void addCache(List<?> entity, String key, CacheTypes type){
-        genericCache.put(key, new CacheEntity<>(entity, key, type.equals(CacheTypes.RANKINGS) ? ranking.get() : lifespan.get()));
+        store(key, new CacheEntity<>(entity, key, getLifespan(type)).setType(type));
+    }
+
+    public static <T> T addCache(T entity, String key, CacheTypes type){
+        store(key, new CacheEntity<>(entity, key, getLifespan(type), unit).setType(type));
+        return entity;
     }
 
     // Added in case we will need it in the future.
     public static void addCache(List<?> entity, String key, int lifespan, TimeUnit unit){
-        genericCache.put(key, new CacheEntity<>(entity, key, lifespan, unit));
+        store(key, new CacheEntity<>(entity, key, lifespan, unit));
     }
 
     // Added for Amelia's special circumstances.
     public static <T> T addCache(T entity, String key, int lifespan, TimeUnit unit){
-        genericCache.put(key, new CacheEntity<>(entity, key, lifespan, unit));
+        store(key, new CacheEntity<>(entity, key, lifespan, unit));
         return entity;
     }
 
+    /**
+     * Replaces the value of the key, a replaced entry keeps its cache type and lifespan
+     * and is renewed, since the value is new.
+     * @param entity the new value.
+     * @param key the key of the value.
+     * @param <T> the type of the value.
+     * @return the value.
+     */
     public static <T> T replace(T entity, String key){
-        if(genericCache.containsKey(key)){
-            genericCache.get(key).replace(entity);
-        } else {
-            genericCache.put(key, new CacheEntity<>(entity, key));
-        }
+        CacheEntity<?> replaced = genericCache.compute(key, (k, existing) -> existing == null ? new CacheEntity<>(entity, key) : existing.replace(entity));
+        persist(key, replaced);
+        evictIfNeeded();
 
         return entity;
     }
 
+    /**
+     * Replaces the list of the key, like {@link #replace(Object, String)}.
+     * @param entity the new list.
+     * @param key the key of the list.
+     */
     public static void replace(Collection<?> entity, String key){
-        if(genericCache.containsKey(key)){
-            genericCache.get(key).replace(entity);
-        } else {
-            genericCache.put(key, new CacheEntity<>(entity, key));
-        }
+        List<?> list = entity instanceof List ? (List<?>) entity : new ArrayList<>(entity);
+        CacheEntity<?> replaced = genericCache.compute(key, (k, existing) -> existing == null ? new CacheEntity<>(list, key) : existing.replaceList(list));
+        persist(key, replaced);
+        evictIfNeeded();
     }
 
     public static void invalidate(String key){
         genericCache.remove(key);
+
+        DiskCache second = disk;
+        if(second != null){
+            second.remove(key);
+        }
+    }
+
+    /**
+     * Retrieves the amount of entries inside the cache, including
+     * entries that have expired but haven't been removed yet.
+     * @return the size of the cache.
+     */
+    public static int size(){
+        return genericCache.size();
+    }
+
+    /**
+     * Removes all the expired entries from the cache, entries that
+     * can still be served stale or revalidated are kept.
+     */
+    public static void cleanUp(){
+        genericCache.forEach((key, entity) -> {
+            if(!isServable(entity) && !isRevalidatable(entity)){
+                expire(key, entity);
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum amount of entries the cache can hold, once the cache goes
+     * over the limit, an expired or the least recently used of a few sampled entries is evicted for every entry over it.
+     * @param size the maximum amount of entries.
+     */
+    public static void setMaximumSize(int size){
+        if(size < 1)
+            throw new IllegalArgumentException("Amatsuki: the cache must be able to hold at least one entry.");
+
+        maximumSize.set(size);
+        evictIfNeeded();
+    }
+
+    private static void expire(String key, CacheEntity<?> entity){
+        if(genericCache.remove(key, entity)){
+            CacheStatistics.recordExpiration(entity.getType());
+        }
+    }
+
+    /**
+     * Creates a view of the cache statistics at this moment.
+     * @return the cache statistics.
+     */
+    public static CacheStatisticsSnapshot getStatistics(){
+        Map<CacheTypes, Long> sizes = new EnumMap<>(CacheTypes.class);
+        genericCache.values().forEach(entity -> sizes.merge(entity.getType(), 1L, Long::sum));
+
+        Map<CacheTypes, StatisticsSnapshot> types = new EnumMap<>(CacheTypes.class);
+        for(CacheTypes type : CacheTypes.values()){
+            types.put(type, CacheStatistics.snapshot(type, sizes.getOrDefault(type, 0L)));
+        }
+
+        Map<Endpoint, StatisticsSnapshot> endpoints = new EnumMap<>(Endpoint.class);
+        for(Endpoint endpoint : Endpoint.values()){
+            endpoints.put(endpoint, CacheStatistics.snapshot(endpoint));
+        }
+
+        return new CacheStatisticsSnapshot(types, endpoints, genericCache.size());
+    }
+
+    private static void store(String key, CacheEntity<?> entity){
+        genericCache.put(key, entity);
+        persist(key, entity);
+        evictIfNeeded();
+    }
+
+    private static void persist(String key, CacheEntity<?> entity){
+        DiskCache second = disk;
+        if(second != null && entity != null){
+            second.write(key, entity.value(), entity.getExpiry(), entity.getType());
+        }
+    }
+
+    private static void evictIfNeeded(){
+        int max = maximumSize.get();
+        while(genericCache.size() > max){
+            if(!evictOne())
+                return;
+        }
+    }
+
+    /**
+     * Evicts the least recently used of a few sampled entries, an expired entry
+     * among the samples is removed first, this costs the same whatever the size of the cache.
+     * @return was there anything to sample?
+     */
+    private static boolean evictOne(){
+        Map.Entry<String, CacheEntity<?>> victim = null;
+        boolean expired = false;
+
+        synchronized (sampling){
+            for(int i = 0; i < SAMPLES; i++){
+                if(!cursor.hasNext()){
+                    cursor = genericCache.entrySet().iterator();
+                    if(!cursor.hasNext())
+                        break;
+                }
+
+                Map.Entry<String, CacheEntity<?>> entry = cursor.next();
+                CacheEntity<?> entity = entry.getValue();
+                if(!isServable(entity) && !isRevalidatable(entity)){
+                    victim = entry;
+                    expired = true;
+                    break;
+                }
+
+                if(victim == null || entity.getLastAccess() < victim.getValue().getLastAccess()){
+                    victim = entry;
+                }
+            }
+        }
+
+        if(victim == null)
+            return false;
+
+        // Another writer may have replaced or evicted the entry already, only this exact entity is removed.
+        if(genericCache.remove(victim.getKey(), victim.getValue())){
+            if(expired){
+                CacheStatistics.recordExpiration(victim.getValue().getType());
+            } else {
+                CacheStatistics.recordEviction(victim.getValue().getType());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Retrieves how long the entities of the cache type live for, in the unit of {@link #setLifespan(int, TimeUnit)}.
+     * @param type the cache type.
+     * @return the lifespan of the type.
+     */
+    public static int getLifespan(CacheTypes type){
+        return type.equals(CacheTypes.RANKINGS) ? ranking.get() : lifespan.get();
     }
 
     public static void setLifespan(int span, TimeUnit time){
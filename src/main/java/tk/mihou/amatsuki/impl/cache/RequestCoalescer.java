@@ -0,0 +1,67 @@
+package tk.mihou.amatsuki.impl.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class RequestCoalescer {
+
+    /**
+     * Keeps track of every request that is still in-flight, keyed the same way
+     * as the CacheManager, so callers asking for the same key at the same time
+     * share one request instead of each sending their own.
+     */
+    static final Map<String, CompletableFuture<?>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * Joins the in-flight request for the key if there is one, otherwise
+     * starts a new request through the loader.
+     *
+     * @param key the cache key of the request.
+     * @param loader the loader that starts the request.
+     * @param <T> the type of the result.
+     * @return the result of the request.
+     */
+    public static <T> CompletableFuture<T> coalesce(String key, Supplier<CompletableFuture<T>> loader){
+        CompletableFuture<T> created = new CompletableFuture<>();
+        // Every request of a key is made by the same loader, so they all complete with a T.
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> existing = (CompletableFuture<T>) inflight.putIfAbsent(key, created);
+
+        if(existing != null){
+            // A dependent future so a caller cancelling or completing theirs won't affect the others.
+            return existing.thenApply(result -> result);
+        }
+
+        CompletableFuture<T> request;
+        try {
+            request = loader.get();
+        } catch (RuntimeException e) {
+            inflight.remove(key, created);
+            created.completeExceptionally(e);
+            return created;
+        }
+
+        request.whenComplete((result, throwable) -> {
+            inflight.remove(key, created);
+            if(throwable != null){
+                created.completeExceptionally(throwable);
+            } else {
+                created.complete(result);
+            }
+        });
+
+        return created.thenApply(result -> result);
+    }
+
+    /**
+     * Checks whether there is a request in-flight for the key.
+     * @param key the cache key of the request.
+     * @return is there a request in-flight?
+     */
+    public static boolean isInflight(String key){
+        return inflight.containsKey(key);
+    }
+
+}
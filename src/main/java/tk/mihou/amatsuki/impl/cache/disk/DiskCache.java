@@ -0,0 +1,344 @@
+package tk.mihou.amatsuki.impl.cache.disk;
+
+import tk.mihou.amatsuki.impl.cache.entities.CacheEntity;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+import tk.mihou.amatsuki.impl.codec.CodecWriter;
+import tk.mihou.amatsuki.impl.codec.EntityCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class DiskCache {
+
+    /**
+     * An append-only log of cache entries with an in-memory index of where the
+     * latest record of every key starts. Writes are queued and appended by a single
+     * thread (write-behind), reads only decode the record that was asked for.
+     *
+     * Record layout: [int length][byte kind][byte type][long expiry][int key length][key][entity]
+     * where the entity is encoded through the {@link EntityCodec}.
+     */
+
+    private static final String LOG_NAME = "amatsuki-cache.log";
+    private static final long COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    // Records that remove a key, the other kinds are the ones of the EntityCodec.
+    private static final byte TOMBSTONE = EntityCodec.UNSUPPORTED;
+
+    private final Path directory;
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Amatsuki-DiskCache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CompletableFuture<Void> indexing;
+
+    // Closes the log when the JVM exits, removed once the cache is closed so a closed cache can be collected.
+    private final Thread shutdownHook = new Thread(this::close, "Amatsuki-DiskCache-Shutdown");
+
+    // Only used by the writer thread.
+    private final CodecWriter records = new CodecWriter(4096);
+
+    private FileChannel channel;
+    private long liveBytes = 0;
+
+    private DiskCache(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(directory.resolve(LOG_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Only the record headers are read at startup, the entities are decoded once requested.
+        this.indexing = CompletableFuture.runAsync(this::buildIndex, writer);
+    }
+
+    /**
+     * Opens (or creates) the disk cache inside the directory.
+     * @param directory the directory to store the log in.
+     * @return the disk cache.
+     * @throws IOException if the log couldn't be opened.
+     */
+    public static DiskCache open(Path directory) throws IOException {
+        DiskCache cache = new DiskCache(directory);
+        Runtime.getRuntime().addShutdownHook(cache.shutdownHook);
+        return cache;
+    }
+
+    /**
+     * Checks whether the value can be stored on disk.
+     * @param value the value to check.
+     * @return can the value be stored?
+     */
+    public static boolean supports(Object value){
+        return EntityCodec.supports(value);
+    }
+
+    /**
+     * Queues the value to be appended to the log.
+     * @param key the key of the value.
+     * @param value the value, a story, user or list of story results or latest updates.
+     * @param expiry when the value expires (epoch millis).
+     * @param type the cache type of the value.
+     */
+    public void write(String key, Object value, long expiry, CacheTypes type){
+        byte kind = EntityCodec.kind(value);
+        if(kind == TOMBSTONE || expiry <= System.currentTimeMillis())
+            return;
+
+        submit(() -> append(key, kind, type, expiry, value));
+    }
+
+    /**
+     * Queues the removal of the key from the log.
+     * @param key the key to remove.
+     */
+    public void remove(String key){
+        submit(() -> {
+            if(index.containsKey(key)){
+                append(key, TOMBSTONE, CacheTypes.DEFAULT, 0, null);
+            }
+        });
+    }
+
+    /**
+     * Reads the latest record of the key from the log, keys are treated as missing
+     * until the log has been indexed so that a lookup never waits on the indexing.
+     * @param key the key to read.
+     * @return the restored entity, null if the key isn't stored (or the log is still being indexed).
+     */
+    public CacheEntity<?> read(String key){
+        if(!indexing.isDone())
+            return null;
+
+        // The index is read under the lock since a compaction moves every record.
+        lock.readLock().lock();
+        try {
+            Long offset = index.get(key);
+            if(offset == null)
+                return null;
+
+            ByteBuffer header = ByteBuffer.allocate(4);
+            readFully(header, offset);
+            ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+            readFully(record, offset + 4);
+            record.flip();
+
+            byte kind = record.get();
+            CacheTypes type = CacheTypes.values()[record.get()];
+            long expiry = record.getLong();
+            byte[] stored = new byte[record.getInt()];
+            record.get(stored);
+            if(kind == TOMBSTONE || !key.equals(new String(stored, StandardCharsets.UTF_8)))
+                return null;
+
+            return CacheEntity.restore(EntityCodec.decode(record), key, expiry, type);
+        } catch (IOException | RuntimeException e) {
+            Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: failed to read " + key + " from the disk cache: " + e.getMessage());
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for all the queued writes to be appended.
+     */
+    public void flush(){
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException ignore) {
+        }
+    }
+
+    /**
+     * Appends the queued writes and closes the log.
+     */
+    public void close(){
+        if(writer.isShutdown())
+            return;
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignore) {
+            // The JVM is already shutting down, which is likely what called this.
+        }
+
+        flush();
+        writer.shutdown();
+        lock.writeLock().lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException ignore) {
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void submit(Runnable task){
+        try {
+            writer.execute(() -> {
+                try {
+                    task.run();
+                } catch (UncheckedIOException e) {
+                    Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: failed to write to the disk cache: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ignore) {
+            // The disk cache was closed, the memory cache still works.
+        }
+    }
+
+    private void buildIndex(){
+        try {
+            long position = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(4 + 1 + 1 + 8 + 4);
+
+            while(position + header.capacity() <= size){
+                header.clear();
+                readFully(header, position);
+                int length = header.getInt(0);
+                byte kind = header.get(4);
+                int keyLength = header.getInt(14);
+                if(length <= 0 || position + 4 + length > size)
+                    break;
+
+                ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+                readFully(keyBuffer, position + header.capacity());
+                String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+
+                track(key, kind, position, 4 + length);
+                position += 4 + length;
+            }
+
+            // Anything after the last complete record was a write that didn't finish.
+            if(position < size){
+                channel.truncate(position);
+            }
+        } catch (IOException e) {
+            Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: failed to index the disk cache: " + e.getMessage());
+        }
+    }
+
+    private void append(String key, byte kind, CacheTypes type, long expiry, Object value){
+        try {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            records.reset().putInt(0).putByte(kind).putByte((byte) type.ordinal()).putLong(expiry).putInt(keyBytes.length).putBytes(keyBytes);
+            if(kind != TOMBSTONE){
+                EntityCodec.encode(value, records);
+            }
+            records.putInt(0, records.position() - 4);
+            ByteBuffer record = records.toBuffer();
+            int length = record.remaining();
+
+            long position;
+            lock.readLock().lock();
+            try {
+                position = channel.size();
+                while(record.hasRemaining()){
+                    channel.write(record, position + record.position());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            track(key, kind, position, length);
+
+            long size = channel.size();
+            if(size > COMPACTION_THRESHOLD && size > liveBytes * 2){
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void track(String key, byte kind, long position, int length){
+        Long previous = kind == TOMBSTONE ? index.remove(key) : index.put(key, position);
+        if(previous != null){
+            liveBytes -= recordLength(previous);
+        }
+
+        if(kind != TOMBSTONE){
+            liveBytes += length;
+        }
+    }
+
+    private int recordLength(long position){
+        try {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            readFully(header, position);
+            return 4 + header.getInt(0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Rewrites the log with only the latest record of every key that hasn't expired.
+     */
+    private void compact() throws IOException {
+        Path compacted = directory.resolve(LOG_NAME + ".compact");
+        lock.writeLock().lock();
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long now = System.currentTimeMillis();
+            long position = 0;
+            Map<String, Long> moved = new HashMap<>();
+
+            for(Map.Entry<String, Long> entry : index.entrySet()){
+                ByteBuffer header = ByteBuffer.allocate(4 + 1 + 1 + 8);
+                readFully(header, entry.getValue());
+                if(header.getLong(6) <= now)
+                    continue;
+
+                ByteBuffer record = ByteBuffer.allocate(4 + header.getInt(0));
+                readFully(record, entry.getValue());
+                record.flip();
+                moved.put(entry.getKey(), position);
+                while(record.hasRemaining()){
+                    position += target.write(record, position);
+                }
+            }
+
+            target.force(true);
+            channel.close();
+            Files.move(compacted, directory.resolve(LOG_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(directory.resolve(LOG_NAME), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            index.clear();
+            index.putAll(moved);
+            liveBytes = position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Amatsuki: unexpected end of the disk cache.");
+        }
+    }
+
+}
@@ -1,45 +1,86 @@
 package tk.mihou.amatsuki.impl.cache.entities;
 
 import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class CacheEntity<T> {
 
-    private T entity;
-    private List<T> list;
-    private final long expected;
+    private volatile T entity;
+    private volatile List<T> list;
+    private volatile long expected;
+    private final long lifespan;
     private final String key;
+    private volatile long lastAccess = System.nanoTime();
+    private volatile CacheTypes type = CacheTypes.DEFAULT;
+    private volatile Validators validators;
 
     public CacheEntity(T entity, String key){
-        this.entity = entity;
-        this.key = key;
-        this.expected = System.currentTimeMillis() + CacheManager.unit.toMillis(CacheManager.lifespan.get());
+        this(entity, null, key, CacheManager.unit.toMillis(CacheManager.lifespan.get()));
     }
 
     public CacheEntity(T entity, String key, int lifespan, TimeUnit unit){
-        this.entity = entity;
-        this.key = key;
-        this.expected = System.currentTimeMillis() + unit.toMillis(lifespan);
+        this(entity, null, key, unit.toMillis(lifespan));
     }
 
     public CacheEntity(List<T> entity, String key){
-        this.list = entity;
-        this.key = key;
-        this.expected = System.currentTimeMillis() + CacheManager.unit.toMillis(CacheManager.lifespan.get());
+        this(null, entity, key, CacheManager.unit.toMillis(CacheManager.lifespan.get()));
     }
 
     public CacheEntity(List<T> entity, String key, int lifespan){
-        this.list = entity;
-        this.key = key;
-        this.expected = System.currentTimeMillis() + CacheManager.unit.toMillis(lifespan);
+        this(null, entity, key, CacheManager.unit.toMillis(lifespan));
     }
 
     public CacheEntity(List<T> entity, String key, int lifespan, TimeUnit unit){
-        this.list = entity;
+        this(null, entity, key, unit.toMillis(lifespan));
+    }
+
+    private CacheEntity(T entity, List<T> list, String key, long lifespan){
+        this.entity = entity;
+        this.list = list;
         this.key = key;
-        this.expected = System.currentTimeMillis() + unit.toMillis(lifespan);
+        this.lifespan = lifespan;
+        this.expected = System.currentTimeMillis() + lifespan;
+    }
+
+    /**
+     * Restores an entity that was stored somewhere else (e.g. on disk),
+     * keeping its original expiry time, it is renewed for the lifespan of its cache type.
+     *
+     * @param value the value, either a list or a single entity.
+     * @param key the key of the entity.
+     * @param expected when the entity expires (epoch millis).
+     * @param type the cache type of the entity.
+     * @return the restored entity.
+     */
+    public static CacheEntity<?> restore(Object value, String key, long expected, CacheTypes type){
+        long lifespan = CacheManager.unit.toMillis(CacheManager.getLifespan(type));
+        CacheEntity<?> entity = value instanceof List
+                ? new CacheEntity<>(null, (List<?>) value, key, lifespan)
+                : new CacheEntity<>(value, null, key, lifespan);
+
+        entity.expected = expected;
+        return entity.setType(type);
+    }
+
+    /**
+     * Sets the cache type the entity belongs to, this is only used for statistics.
+     * @param type the cache type.
+     * @return CacheEntity.
+     */
+    public CacheEntity<T> setType(CacheTypes type){
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Retrieves the cache type the entity belongs to.
+     * @return the cache type.
+     */
+    public CacheTypes getType(){
+        return type;
     }
 
     /**
@@ -61,19 +102,97 @@ public class CacheEntity<T> {
      * @return an entity.
      */
     public boolean isInvalid(){
-        if((expected - System.currentTimeMillis()) <= 0){
-            CacheManager.invalidate(key);
-        }
-
+        // Removal is left to the CacheManager, which only removes this exact entity.
         return (expected - System.currentTimeMillis()) <= 0;
     }
 
     /**
-     * Replaces the entity inside the cache.
-     * This only works when cache is enabled.
+     * Retrieves how long the entity has been expired for (millis),
+     * this is zero or below if the entity is still valid.
+     * @return the staleness of the entity.
      */
-    public void replace(T entity){
-        this.entity = entity;
+    public long getStaleness(){
+        return System.currentTimeMillis() - expected;
+    }
+
+    /**
+     * Retrieves when the entity expires (epoch millis).
+     * @return the expiry time.
+     */
+    public long getExpiry(){
+        return expected;
+    }
+
+    /**
+     * Extends the life of the entity by its original lifespan starting from now,
+     * this is used when the page behind the entity turned out to be unchanged.
+     */
+    public void renew(){
+        expected = System.currentTimeMillis() + lifespan;
+    }
+
+    /**
+     * Sets what is needed to revalidate the entity with ScribbleHub once it expires.
+     * @param validators the validators of the page behind the entity.
+     */
+    public void setValidators(Validators validators){
+        this.validators = validators;
+    }
+
+    /**
+     * Retrieves what is needed to revalidate the entity with ScribbleHub.
+     * @return the validators, null if the entity can't be revalidated.
+     */
+    public Validators getValidators(){
+        return validators;
+    }
+
+    /**
+     * Retrieves the value of the entity, whether it is a list or a single entity.
+     * @return the value.
+     */
+    public Object value(){
+        List<T> current = list;
+        return current != null ? current : entity;
+    }
+
+    /**
+     * Marks the entity as recently used, this is used by the
+     * CacheManager to decide which entities to evict first.
+     */
+    public void access(){
+        lastAccess = System.nanoTime();
+    }
+
+    /**
+     * Retrieves when the entity was last used (in nanoseconds).
+     * @return the last access time.
+     */
+    public long getLastAccess(){
+        return lastAccess;
+    }
+
+    /**
+     * Creates the entity that replaces this one inside the cache, it keeps the cache type
+     * and the lifespan of this entity and expires a whole lifespan from now. The validators
+     * describe the old value, which is why they aren't carried over.
+     * @param entity the new value.
+     * @param <V> the type of the new value.
+     * @return the replacement.
+     */
+    public <V> CacheEntity<V> replace(V entity){
+        return new CacheEntity<>(entity, null, key, lifespan).setType(type);
+    }
+
+    /**
+     * Creates the entity that replaces this one inside the cache with a list,
+     * like {@link #replace(Object)}.
+     * @param list the new list.
+     * @param <V> the type of the elements.
+     * @return the replacement.
+     */
+    public <V> CacheEntity<V> replaceList(List<V> list){
+        return new CacheEntity<V>(null, list, key, lifespan).setType(type);
     }
 
     public boolean isList(){
@@ -89,8 +208,9 @@ public class CacheEntity<T> {
      * @param type the type expected to return.
      * @return are they the same type?
      */
-    public boolean sameType(Class type){
-        return type.equals(entity.getClass());
+    public boolean sameType(Class<?> type){
+        T current = entity;
+        return current != null && type.equals(current.getClass());
     }
 
 }
@@ -0,0 +1,61 @@
+package tk.mihou.amatsuki.impl.cache.entities;
+
+public class Validators {
+
+    /**
+     * What is needed to ask ScribbleHub whether a page changed since it was cached:
+     * the ETag and Last-Modified headers (when the page had them) and a hash of the
+     * body, which catches the pages that come back identical without a 304.
+     */
+
+    private final String etag;
+    private final String lastModified;
+    private final long hash;
+
+    public Validators(String etag, String lastModified, long hash) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.hash = hash;
+    }
+
+    /**
+     * Hashes the body of a page (64-bit FNV-1a), this is much cheaper
+     * than parsing the page and good enough to tell two pages apart.
+     * @param body the body of the page.
+     * @return the hash of the body.
+     */
+    public static long hash(byte[] body){
+        long hash = 0xcbf29ce484222325L;
+        for(byte b : body){
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Retrieves the ETag of the page, sent back as If-None-Match.
+     * @return the ETag, null if the page had none.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Retrieves the Last-Modified of the page, sent back as If-Modified-Since.
+     * @return the Last-Modified date, null if the page had none.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Retrieves the hash of the body of the page.
+     * @return the hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+}
@@ -0,0 +1,150 @@
+package tk.mihou.amatsuki.impl.cache.stats;
+
+import tk.mihou.amatsuki.api.enums.Endpoint;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheStatistics {
+
+    /**
+     * Counts the hits, misses and loads of every endpoint as well as the evictions
+     * and expirations of every cache type. Counters are striped (LongAdder) so
+     * recording doesn't become a point of contention on hot keys.
+     */
+
+    private static final Map<Endpoint, Counters> endpoints = new EnumMap<>(Endpoint.class);
+    private static final Map<CacheTypes, LongAdder> evictions = new EnumMap<>(CacheTypes.class);
+    private static final Map<CacheTypes, LongAdder> expirations = new EnumMap<>(CacheTypes.class);
+
+    static {
+        for(Endpoint endpoint : Endpoint.values()){
+            endpoints.put(endpoint, new Counters());
+        }
+
+        for(CacheTypes type : CacheTypes.values()){
+            evictions.put(type, new LongAdder());
+            expirations.put(type, new LongAdder());
+        }
+    }
+
+    public static void recordHit(Endpoint endpoint){
+        endpoints.get(endpoint).hits.increment();
+    }
+
+    public static void recordStaleHit(Endpoint endpoint){
+        endpoints.get(endpoint).staleHits.increment();
+    }
+
+    public static void recordMiss(Endpoint endpoint){
+        endpoints.get(endpoint).misses.increment();
+    }
+
+    public static void recordRevalidation(Endpoint endpoint){
+        endpoints.get(endpoint).revalidations.increment();
+    }
+
+    public static void recordEviction(CacheTypes type){
+        evictions.get(type).increment();
+    }
+
+    public static void recordExpiration(CacheTypes type){
+        expirations.get(type).increment();
+    }
+
+    /**
+     * Records how long the load takes once it completes, a load that completes
+     * exceptionally or without a result is counted as a failure.
+     *
+     * @param endpoint the endpoint of the load.
+     * @param load the load.
+     * @param <T> the type of the result.
+     * @return the same load.
+     */
+    public static <T> CompletableFuture<T> time(Endpoint endpoint, CompletableFuture<T> load){
+        long start = System.nanoTime();
+        Counters counters = endpoints.get(endpoint);
+        load.whenComplete((result, throwable) -> {
+            counters.loadTime.record(System.nanoTime() - start);
+            if(throwable != null || result == null){
+                counters.failures.increment();
+            }
+        });
+        return load;
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public static void reset(){
+        endpoints.values().forEach(Counters::reset);
+        evictions.values().forEach(LongAdder::reset);
+        expirations.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Creates a view of the counters of the endpoint at this moment.
+     * @param endpoint the endpoint.
+     * @return the statistics of the endpoint.
+     */
+    public static StatisticsSnapshot snapshot(Endpoint endpoint){
+        Counters counters = endpoints.get(endpoint);
+        LatencyHistogram histogram = counters.loadTime;
+        return new StatisticsSnapshot(counters.hits.sum(), counters.staleHits.sum(), counters.misses.sum(), histogram.getCount(),
+                counters.failures.sum(), counters.revalidations.sum(), histogram.getAverage(), histogram.getPercentile(0.5), histogram.getPercentile(0.99),
+                histogram.getPercentile(0.999), -1, -1, -1);
+    }
+
+    /**
+     * Creates a view of all the endpoints of the cache type combined at this moment,
+     * the latencies of the endpoints are added together before the percentiles are read.
+     *
+     * @param type the cache type.
+     * @param size the amount of entries of the type inside the cache.
+     * @return the statistics of the cache type.
+     */
+    public static StatisticsSnapshot snapshot(CacheTypes type, long size){
+        long hits = 0, stale = 0, misses = 0, failures = 0, revalidations = 0;
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for(Map.Entry<Endpoint, Counters> entry : endpoints.entrySet()){
+            if(entry.getKey().getType() != type)
+                continue;
+
+            Counters counters = entry.getValue();
+            hits += counters.hits.sum();
+            stale += counters.staleHits.sum();
+            misses += counters.misses.sum();
+            failures += counters.failures.sum();
+            revalidations += counters.revalidations.sum();
+            histogram.add(counters.loadTime);
+        }
+
+        return new StatisticsSnapshot(hits, stale, misses, histogram.getCount(), failures, revalidations, histogram.getAverage(), histogram.getPercentile(0.5),
+                histogram.getPercentile(0.99), histogram.getPercentile(0.999), size, evictions.get(type).sum(), expirations.get(type).sum());
+    }
+
+    private static class Counters {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder revalidations = new LongAdder();
+        private final LatencyHistogram loadTime = new LatencyHistogram();
+
+        private void reset(){
+            hits.reset();
+            staleHits.reset();
+            misses.reset();
+            failures.reset();
+            revalidations.reset();
+            loadTime.reset();
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package tk.mihou.amatsuki.impl.cache.stats;
+
+import tk.mihou.amatsuki.api.enums.Endpoint;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class CacheStatisticsSnapshot {
+
+    private final Map<CacheTypes, StatisticsSnapshot> types;
+    private final Map<Endpoint, StatisticsSnapshot> endpoints;
+    private final long size;
+
+    public CacheStatisticsSnapshot(Map<CacheTypes, StatisticsSnapshot> types, Map<Endpoint, StatisticsSnapshot> endpoints, long size) {
+        this.types = Collections.unmodifiableMap(types);
+        this.endpoints = Collections.unmodifiableMap(endpoints);
+        this.size = size;
+    }
+
+    /**
+     * Gets the statistics of a cache type.
+     * @param type the cache type.
+     * @return the statistics of the cache type.
+     */
+    public StatisticsSnapshot getType(CacheTypes type){
+        return types.get(type);
+    }
+
+    /**
+     * Gets the statistics of an endpoint.
+     * @param endpoint the endpoint.
+     * @return the statistics of the endpoint.
+     */
+    public StatisticsSnapshot getEndpoint(Endpoint endpoint){
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * Gets the statistics of every cache type.
+     * @return the statistics of every cache type.
+     */
+    public Map<CacheTypes, StatisticsSnapshot> getTypes(){
+        return types;
+    }
+
+    /**
+     * Gets the statistics of every endpoint.
+     * @return the statistics of every endpoint.
+     */
+    public Map<Endpoint, StatisticsSnapshot> getEndpoints(){
+        return endpoints;
+    }
+
+    /**
+     * Gets the total amount of entries inside the cache.
+     * @return the size of the cache.
+     */
+    public long getSize(){
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("size=").append(size);
+        types.forEach((type, statistics) -> str.append("\n").append(type).append(": ").append(statistics));
+        endpoints.forEach((endpoint, statistics) -> str.append("\n").append(endpoint).append(": ").append(statistics));
+        return str.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package tk.mihou.amatsuki.impl.cache.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    /**
+     * A lock-free histogram of latencies in microseconds, values below 16 have their own
+     * bucket and every power of two above that is split into four buckets, which keeps
+     * the error of a percentile under 25% while only needing a couple hundred counters.
+     */
+
+    private static final int LINEAR = 16;
+    private static final int BUCKETS = LINEAR + (63 - 4) * 4;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos){
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(index(micros));
+        count.increment();
+        total.add(micros);
+    }
+
+    /**
+     * Adds the samples of another histogram into this one, every histogram has the same
+     * buckets so the percentiles of the sum are those of all the samples together.
+     * @param other the histogram to add.
+     * @return LatencyHistogram for chain calling.
+     */
+    public LatencyHistogram add(LatencyHistogram other){
+        for(int i = 0; i < BUCKETS; i++){
+            long samples = other.buckets.get(i);
+            if(samples != 0){
+                buckets.addAndGet(i, samples);
+            }
+        }
+        count.add(other.count.sum());
+        total.add(other.total.sum());
+        return this;
+    }
+
+    public void reset(){
+        for(int i = 0; i < BUCKETS; i++){
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the average latency.
+     * @return the average latency in milliseconds.
+     */
+    public double getAverage(){
+        long samples = count.sum();
+        return samples == 0 ? 0 : total.sum() / (double) samples / 1000.0;
+    }
+
+    /**
+     * Retrieves the latency under which the given fraction of the samples fall,
+     * this is the upper bound of the bucket the percentile lands in.
+     *
+     * @param percentile the percentile (0.0 to 1.0, e.g. 0.99).
+     * @return the latency in milliseconds.
+     */
+    public double getPercentile(double percentile){
+        long[] snapshot = new long[BUCKETS];
+        long samples = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            snapshot[i] = buckets.get(i);
+            samples += snapshot[i];
+        }
+
+        if(samples == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * samples);
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += snapshot[i];
+            if(seen >= Math.max(1, rank))
+                return upperBound(i) / 1000.0;
+        }
+
+        return upperBound(BUCKETS - 1) / 1000.0;
+    }
+
+    private static int index(long micros){
+        if(micros < LINEAR)
+            return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - 2)) & 3;
+        return Math.min(BUCKETS - 1, LINEAR + (exponent - 4) * 4 + sub);
+    }
+
+    private static long upperBound(int index){
+        if(index < LINEAR)
+            return index;
+
+        int exponent = (index - LINEAR) / 4 + 4;
+        int sub = (index - LINEAR) % 4;
+        return (1L << exponent) + ((long) (sub + 1) << (exponent - 2)) - 1;
+    }
+
+}
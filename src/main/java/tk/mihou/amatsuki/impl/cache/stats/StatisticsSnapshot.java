@@ -0,0 +1,166 @@
+package tk.mihou.amatsuki.impl.cache.stats;
+
+public class StatisticsSnapshot {
+
+    private final long hits;
+    private final long staleHits;
+    private final long misses;
+    private final long loads;
+    private final long failures;
+    private final long revalidations;
+    private final double averageLoadTime;
+    private final double p50;
+    private final double p99;
+    private final double p999;
+    private final long size;
+    private final long evictions;
+    private final long expirations;
+
+    public StatisticsSnapshot(long hits, long staleHits, long misses, long loads, long failures, long revalidations, double averageLoadTime,
+                              double p50, double p99, double p999, long size, long evictions, long expirations) {
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.misses = misses;
+        this.loads = loads;
+        this.failures = failures;
+        this.revalidations = revalidations;
+        this.averageLoadTime = averageLoadTime;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.size = size;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    /**
+     * Gets the amount of requests served from the cache, including stale ones.
+     * @return the hit count.
+     */
+    public long getHits() {
+        return hits + staleHits;
+    }
+
+    /**
+     * Gets the amount of requests served from an expired entry while it was refreshed.
+     * @return the stale hit count.
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * Gets the amount of requests that had to wait for ScribbleHub.
+     * @return the miss count.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the amount of requests sent to ScribbleHub, which includes
+     * background refreshes and excludes callers that joined an in-flight request.
+     * @return the load count.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Gets the amount of loads that failed or returned nothing.
+     * @return the failure count.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets the amount of loads whose page was unchanged (a 304 or the same body),
+     * these renewed the cached entry without parsing the page again.
+     * @return the revalidation count.
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * Gets the fraction of requests that were served from the cache.
+     * @return the hit rate (0.0 to 1.0).
+     */
+    public double getHitRate() {
+        long requests = getHits() + misses;
+        return requests == 0 ? 0 : getHits() / (double) requests;
+    }
+
+    /**
+     * Gets the fraction of requests that weren't served from the cache.
+     * @return the miss rate (0.0 to 1.0).
+     */
+    public double getMissRate() {
+        long requests = getHits() + misses;
+        return requests == 0 ? 0 : misses / (double) requests;
+    }
+
+    /**
+     * Gets the average time a load took.
+     * @return the average load time in milliseconds.
+     */
+    public double getAverageLoadTime() {
+        return averageLoadTime;
+    }
+
+    /**
+     * Gets the median time a load took.
+     * @return the load time in milliseconds.
+     */
+    public double getLoadTimeP50() {
+        return p50;
+    }
+
+    /**
+     * Gets the time 99% of the loads took at most.
+     * @return the load time in milliseconds.
+     */
+    public double getLoadTimeP99() {
+        return p99;
+    }
+
+    /**
+     * Gets the time 99.9% of the loads took at most.
+     * @return the load time in milliseconds.
+     */
+    public double getLoadTimeP999() {
+        return p999;
+    }
+
+    /**
+     * Gets the amount of entries inside the cache, only tracked per cache type.
+     * @return the size, -1 for endpoints.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the amount of entries that were evicted to keep the cache under its maximum size,
+     * only tracked per cache type.
+     * @return the eviction count, -1 for endpoints.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the amount of entries that were removed after expiring, only tracked per cache type.
+     * @return the expiration count, -1 for endpoints.
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d (stale=%d), misses=%d, hitRate=%.3f, loads=%d, failures=%d, revalidations=%d, avg=%.2fms, p50=%.2fms, p99=%.2fms, p999=%.2fms, size=%d, evictions=%d, expirations=%d",
+                getHits(), staleHits, misses, getHitRate(), loads, failures, revalidations, averageLoadTime, p50, p99, p999, size, evictions, expirations);
+    }
+}
@@ -0,0 +1,102 @@
+package tk.mihou.amatsuki.impl.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CodecReader {
+
+    /**
+     * Reads the values written by a {@link CodecWriter} in the same order,
+     * strings are decoded straight from the backing array when there is one.
+     */
+
+    private final ByteBuffer buffer;
+
+    public CodecReader(ByteBuffer buffer){
+        this.buffer = buffer;
+    }
+
+    public byte getByte(){
+        return buffer.get();
+    }
+
+    public boolean getBoolean(){
+        return buffer.get() != 0;
+    }
+
+    public int getInt(){
+        return buffer.getInt();
+    }
+
+    public long getLong(){
+        return buffer.getLong();
+    }
+
+    public double getDouble(){
+        return buffer.getDouble();
+    }
+
+    public long getVarLong(){
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IllegalStateException("Amatsuki: malformed variable-length integer.");
+    }
+
+    public int getVarInt(){
+        int raw = (int) getVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long getVarSignedLong(){
+        long raw = getVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public Double getNullableDouble(){
+        return getBoolean() ? getDouble() : null;
+    }
+
+    public String getString(){
+        long header = getVarLong();
+        if(header == 0)
+            return null;
+
+        int length = (int) (header - 1);
+        if(length > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        String value;
+        if(buffer.hasArray()){
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    public List<String> getStrings(){
+        long header = getVarLong();
+        if(header == 0)
+            return null;
+
+        int size = (int) (header - 1);
+        List<String> values = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            values.add(getString());
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,210 @@
+package tk.mihou.amatsuki.impl.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class CodecWriter {
+
+    /**
+     * Writes values straight into a growable heap buffer, strings are encoded
+     * to UTF-8 in place so no intermediate byte arrays are created.
+     */
+
+    private ByteBuffer buffer;
+
+    public CodecWriter(){
+        this(256);
+    }
+
+    public CodecWriter(int capacity){
+        this.buffer = ByteBuffer.allocate(Math.max(16, capacity));
+    }
+
+    /**
+     * Clears the writer so it can be reused, the buffer is kept.
+     * @return CodecWriter.
+     */
+    public CodecWriter reset(){
+        buffer.clear();
+        return this;
+    }
+
+    /**
+     * Retrieves the written bytes, the returned buffer shares its
+     * content with the writer and is ready to be read.
+     * @return the written bytes.
+     */
+    public ByteBuffer toBuffer(){
+        ByteBuffer view = buffer.duplicate();
+        view.flip();
+        return view;
+    }
+
+    /**
+     * Retrieves how many bytes were written.
+     * @return the amount of bytes.
+     */
+    public int position(){
+        return buffer.position();
+    }
+
+    public CodecWriter putByte(byte value){
+        ensure(1);
+        buffer.put(value);
+        return this;
+    }
+
+    public CodecWriter putBoolean(boolean value){
+        return putByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    public CodecWriter putInt(int value){
+        ensure(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public CodecWriter putInt(int index, int value){
+        buffer.putInt(index, value);
+        return this;
+    }
+
+    public CodecWriter putLong(long value){
+        ensure(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    public CodecWriter putDouble(double value){
+        ensure(8);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    public CodecWriter putBytes(byte[] value){
+        ensure(value.length);
+        buffer.put(value);
+        return this;
+    }
+
+    /**
+     * Writes an unsigned variable-length integer (7 bits per byte).
+     * @param value the value, must not be negative.
+     * @return CodecWriter.
+     */
+    public CodecWriter putVarLong(long value){
+        ensure(10);
+        while((value & ~0x7FL) != 0){
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    /**
+     * Writes a signed variable-length integer, small negative numbers stay small (zigzag).
+     * @param value the value.
+     * @return CodecWriter.
+     */
+    public CodecWriter putVarInt(int value){
+        return putVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a signed variable-length long, small negative numbers stay small (zigzag).
+     * @param value the value.
+     * @return CodecWriter.
+     */
+    public CodecWriter putVarSignedLong(long value){
+        return putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public CodecWriter putNullableDouble(Double value){
+        putBoolean(value != null);
+        if(value != null){
+            putDouble(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a nullable string as its UTF-8 length (plus one, zero means null) followed by its bytes.
+     * @param value the string.
+     * @return CodecWriter.
+     */
+    public CodecWriter putString(String value){
+        if(value == null){
+            return putVarLong(0);
+        }
+
+        int length = utf8Length(value);
+        putVarLong(length + 1L);
+        ensure(length);
+
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c < 0x80){
+                buffer.put((byte) c);
+            } else if(c < 0x800){
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))){
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                // Lone surrogates are replaced the same way String#getBytes does.
+                if(Character.isSurrogate(c)) c = '?';
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return this;
+    }
+
+    public CodecWriter putStrings(List<String> values){
+        if(values == null){
+            return putVarLong(0);
+        }
+
+        putVarLong(values.size() + 1L);
+        for(String value : values){
+            putString(value);
+        }
+        return this;
+    }
+
+    private static int utf8Length(String value){
+        int length = 0;
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c < 0x80){
+                length += 1;
+            } else if(c < 0x800){
+                length += 2;
+            } else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))){
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void ensure(int bytes){
+        if(buffer.remaining() >= bytes)
+            return;
+
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+}
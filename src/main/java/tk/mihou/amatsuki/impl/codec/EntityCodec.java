@@ -0,0 +1,368 @@
+package tk.mihou.amatsuki.impl.codec;
+
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.entities.ForumThread;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesBuilder;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.StoryBuilder;
+import tk.mihou.amatsuki.entities.story.lower.StoryResultBuilder;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.entities.user.UserBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class EntityCodec {
+
+    /**
+     * A compact binary format for the entities, every value starts with the
+     * schema version and the kind of the entity followed by its fields in a fixed order.
+     * Numbers are written as variable-length integers and strings as UTF-8.
+     *
+     * The version must be bumped whenever the fields or their order change,
+     * older versions should still be readable where possible.
+     */
+
+    public static final byte VERSION = 1;
+
+    public static final byte UNSUPPORTED = 0;
+    public static final byte STORY = 1;
+    public static final byte USER = 2;
+    public static final byte STORY_RESULTS = 3;
+    public static final byte LATEST_UPDATES = 4;
+    public static final byte HOMEPAGE = 5;
+    public static final byte PARTIAL_STORY = 6;
+
+    /**
+     * Retrieves the kind of the value.
+     * @param value the value.
+     * @return the kind of the value, {@link #UNSUPPORTED} if it can't be encoded.
+     */
+    public static byte kind(Object value){
+        if(value instanceof Story)
+            return ((Story) value).isComplete() ? STORY : PARTIAL_STORY;
+
+        if(value instanceof User)
+            return USER;
+
+        if(value instanceof HomepageSnapshot)
+            return HOMEPAGE;
+
+        if(value instanceof List){
+            List<?> list = (List<?>) value;
+            // An empty list has no elements to tell its kind by, it is decoded as an empty
+            // list which serves as empty story results and empty latest updates alike.
+            if(list.isEmpty() || list.get(0) instanceof StoryResults)
+                return STORY_RESULTS;
+
+            if(list.get(0) instanceof LatestUpdatesResult)
+                return LATEST_UPDATES;
+        }
+
+        return UNSUPPORTED;
+    }
+
+    /**
+     * Checks whether the value can be encoded.
+     * @param value the value.
+     * @return can the value be encoded?
+     */
+    public static boolean supports(Object value){
+        return kind(value) != UNSUPPORTED;
+    }
+
+    /**
+     * Encodes the value into a new buffer.
+     * @param value a story, user, homepage or a list of story results or latest updates.
+     * @return the encoded value, ready to be read.
+     */
+    public static ByteBuffer encode(Object value){
+        return encode(value, new CodecWriter()).toBuffer();
+    }
+
+    /**
+     * Encodes the value into the writer.
+     * @param value a story, user, homepage or a list of story results or latest updates.
+     * @param writer the writer to write into.
+     * @return the writer.
+     */
+    public static CodecWriter encode(Object value, CodecWriter writer){
+        byte kind = kind(value);
+        if(kind == UNSUPPORTED)
+            throw new IllegalArgumentException("Amatsuki: " + value + " can't be encoded.");
+
+        writer.putByte(VERSION).putByte(kind);
+        switch (kind){
+            case STORY:
+                writeStory((Story) value, writer);
+                break;
+            case USER:
+                writeUser((User) value, writer);
+                break;
+            case STORY_RESULTS:
+                List<?> results = (List<?>) value;
+                writer.putVarLong(results.size());
+                for(Object result : results){
+                    writeStoryResults((StoryResults) result, writer);
+                }
+                break;
+            case LATEST_UPDATES:
+                List<?> updates = (List<?>) value;
+                writer.putVarLong(updates.size());
+                for(Object update : updates){
+                    writeLatestUpdate((LatestUpdatesResult) update, writer);
+                }
+                break;
+            case HOMEPAGE:
+                writeHomepage((HomepageSnapshot) value, writer);
+                break;
+            case PARTIAL_STORY:
+                // The fields that were read, as a mask of their ordinals.
+                int mask = 0;
+                for(StoryField field : ((Story) value).getFields()){
+                    mask |= 1 << field.ordinal();
+                }
+                writer.putVarInt(mask);
+                writeStory((Story) value, writer);
+                break;
+        }
+        return writer;
+    }
+
+    /**
+     * Decodes a value from the buffer, the buffer is advanced past the value.
+     * @param buffer the buffer to read from.
+     * @return the decoded value.
+     * @throws IllegalArgumentException if the version or the kind is unknown.
+     */
+    public static Object decode(ByteBuffer buffer){
+        CodecReader reader = new CodecReader(buffer);
+        byte version = reader.getByte();
+        if(version != VERSION)
+            throw new IllegalArgumentException("Amatsuki: unsupported codec version " + version + ".");
+
+        byte kind = reader.getByte();
+        switch (kind){
+            case STORY:
+                return readStory(reader, StoryField.ALL);
+            case USER:
+                return readUser(reader);
+            case STORY_RESULTS: {
+                int size = (int) reader.getVarLong();
+                List<StoryResults> results = new ArrayList<>(size);
+                for(int i = 0; i < size; i++){
+                    results.add(readStoryResults(reader));
+                }
+                return results;
+            }
+            case LATEST_UPDATES: {
+                int size = (int) reader.getVarLong();
+                List<LatestUpdatesResult> updates = new ArrayList<>(size);
+                for(int i = 0; i < size; i++){
+                    updates.add(readLatestUpdate(reader));
+                }
+                return updates;
+            }
+            case HOMEPAGE:
+                return readHomepage(reader);
+            case PARTIAL_STORY: {
+                int mask = reader.getVarInt();
+                Set<StoryField> fields = EnumSet.noneOf(StoryField.class);
+                for(StoryField field : StoryField.values()){
+                    if((mask & 1 << field.ordinal()) != 0){
+                        fields.add(field);
+                    }
+                }
+                return readStory(reader, fields);
+            }
+            default:
+                throw new IllegalArgumentException("Amatsuki: unknown entity kind " + kind + ".");
+        }
+    }
+
+    private static void writeStory(Story story, CodecWriter writer){
+        writer.putString(story.getTitle())
+                .putString(story.getSynopsis())
+                .putString(story.getUrl())
+                .putString(story.getThumbnail())
+                .putString(story.getCreator())
+                .putNullableDouble(story.getRating())
+                .putString(story.getViews())
+                .putVarSignedLong(story.getFavorites())
+                .putVarInt(story.getChapters())
+                .putVarInt(story.getChapterPerWeek())
+                .putVarInt(story.getRatings())
+                .putVarInt(story.getReaders())
+                .putStrings(story.getGenres())
+                .putStrings(story.getTags())
+                .putVarInt(story.getSID());
+    }
+
+    private static Story readStory(CodecReader reader, Set<StoryField> fields){
+        StoryBuilder builder = new StoryBuilder();
+        builder.setTitle(reader.getString());
+        builder.setSynopsis(reader.getString());
+        builder.setUrl(reader.getString());
+        builder.setImage(reader.getString());
+        builder.setCreator(reader.getString());
+        builder.setRating(reader.getNullableDouble());
+        builder.setViews(reader.getString());
+        builder.setFavorites(Long.toString(reader.getVarSignedLong()));
+        builder.setChapters(reader.getVarInt());
+        builder.setChapterPerWeek(reader.getVarInt());
+        builder.setRatings(reader.getVarInt());
+        builder.setReaders(reader.getVarInt());
+        builder.setGenres(reader.getStrings());
+        builder.setTags(reader.getStrings());
+        builder.setSID(reader.getVarInt());
+        builder.setFields(fields);
+        return builder.build();
+    }
+
+    private static void writeUser(User user, CodecWriter writer){
+        writer.putVarInt(user.getUID())
+                .putVarSignedLong(user.getTotalWords())
+                .putVarInt(user.getTotalSeries())
+                .putVarSignedLong(user.getTotalViews())
+                .putVarInt(user.getTotalReviews())
+                .putVarInt(user.getTotalReaders())
+                .putVarInt(user.getTotalFollowers())
+                .putString(user.getUrl())
+                .putString(user.getName())
+                .putString(user.getBio())
+                .putString(user.getAvatar())
+                .putString(user.getBirthday())
+                .putString(user.getGender())
+                .putString(user.getLocation())
+                .putString(user.getHomepage())
+                .putString(user.getLastActive())
+                .putBoolean(user.isDisabled());
+    }
+
+    private static User readUser(CodecReader reader){
+        UserBuilder builder = new UserBuilder();
+        builder.setUID(reader.getVarInt());
+        builder.setTotalWords(reader.getVarSignedLong());
+        builder.setTotalSeries(reader.getVarInt());
+        builder.setTotalViews(reader.getVarSignedLong());
+        builder.setTotalReviews(reader.getVarInt());
+        builder.setTotalReaders(reader.getVarInt());
+        builder.setTotalFollowers(reader.getVarInt());
+        builder.setUrl(reader.getString());
+        builder.setName(reader.getString());
+        builder.setBio(reader.getString());
+        builder.setAvatar(reader.getString());
+        builder.setBirthday(reader.getString());
+        builder.setGender(reader.getString());
+        builder.setLocation(reader.getString());
+        builder.setHomepage(reader.getString());
+        builder.setLastActive(reader.getString());
+        builder.setDisabled(reader.getBoolean());
+        return builder.build();
+    }
+
+    private static void writeStoryResults(StoryResults result, CodecWriter writer){
+        writer.putString(result.getName())
+                .putString(result.getThumbnail())
+                .putString(result.getUrl())
+                .putString(result.getShortSynopsis())
+                .putString(result.getFullSynopsis())
+                .putStrings(result.getGenres())
+                .putString(result.getCreator())
+                .putString(result.getViews())
+                .putNullableDouble(result.getRating())
+                .putVarSignedLong(result.getFavorites())
+                .putVarInt(result.getChapters())
+                .putVarInt(result.getChapterPerWeek())
+                .putVarInt(result.getReaders())
+                .putVarInt(result.getReviews())
+                .putString(result.getLastUpdated())
+                .putString(result.getWordCount())
+                .putString(result.getCreatorURL());
+    }
+
+    private static StoryResults readStoryResults(CodecReader reader){
+        StoryResultBuilder builder = new StoryResultBuilder();
+        builder.setName(reader.getString());
+        builder.setThumbnail(reader.getString());
+        builder.setUrl(reader.getString());
+        builder.setShortSynopsis(reader.getString());
+        builder.setFullSynopsis(reader.getString());
+        builder.setGenres(reader.getStrings());
+        builder.setCreator(reader.getString());
+        builder.setViews(reader.getString());
+        builder.setRating(reader.getNullableDouble());
+        builder.setFavorites(reader.getVarSignedLong());
+        builder.setChapters(reader.getVarInt());
+        builder.setChw(reader.getVarInt());
+        builder.setReaders(reader.getVarInt());
+        builder.setReviews(reader.getVarInt());
+        builder.setLastUpdated(reader.getString());
+        builder.setWord(reader.getString());
+        builder.setAuthorURL(reader.getString());
+        return builder.build();
+    }
+
+    private static void writeHomepage(HomepageSnapshot homepage, CodecWriter writer){
+        writer.putVarLong(homepage.getLatestTopics().size());
+        for(ForumThread thread : homepage.getLatestTopics()){
+            writer.putString(thread.getTitle())
+                    .putString(thread.getForum())
+                    .putString(thread.getUrl());
+        }
+
+        writer.putVarLong(homepage.getLatestUpdates().size());
+        for(LatestUpdatesResult update : homepage.getLatestUpdates()){
+            writeLatestUpdate(update, writer);
+        }
+    }
+
+    private static HomepageSnapshot readHomepage(CodecReader reader){
+        int size = (int) reader.getVarLong();
+        List<ForumThread> topics = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            topics.add(new ForumThread(reader.getString(), reader.getString(), reader.getString()));
+        }
+
+        size = (int) reader.getVarLong();
+        List<LatestUpdatesResult> updates = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            updates.add(readLatestUpdate(reader));
+        }
+
+        return new HomepageSnapshot(topics, updates);
+    }
+
+    private static void writeLatestUpdate(LatestUpdatesResult update, CodecWriter writer){
+        writer.putString(update.getStoryURL())
+                .putString(update.getAuthorURL())
+                .putString(update.getAuthorName())
+                .putStrings(update.getGenres())
+                .putString(update.getChapterTitle())
+                .putString(update.getLastUpdate())
+                .putString(update.getStoryName())
+                .putString(update.getThumbnail())
+                .putString(update.getChapterURL());
+    }
+
+    private static LatestUpdatesResult readLatestUpdate(CodecReader reader){
+        LatestUpdatesBuilder builder = new LatestUpdatesBuilder();
+        builder.setStoryURL(reader.getString());
+        builder.setAuthorURL(reader.getString());
+        builder.setAuthorName(reader.getString());
+        builder.setGenres(reader.getStrings());
+        builder.setChapterTitle(reader.getString());
+        builder.setLastUpdate(reader.getString());
+        builder.setStoryName(reader.getString());
+        builder.setThumbnail(reader.getString());
+        builder.setChapterURL(reader.getString());
+        return builder.build();
+    }
+
+}
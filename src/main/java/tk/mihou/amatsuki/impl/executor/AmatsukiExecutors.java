@@ -0,0 +1,122 @@
+package tk.mihou.amatsuki.impl.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AmatsukiExecutors {
+
+    // The default size of the shared pool, requests are mostly waiting on I/O
+    // which is why we go a little over the processor count.
+    public static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+    private static volatile ExecutorService shared;
+    private static volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Retrieves the executor that is shared between all Amatsuki instances
+     * which haven't been given an executor of their own, this is created lazily
+     * and uses daemon threads that die off after being idle for a minute.
+     *
+     * @return the shared executor.
+     */
+    public static ExecutorService shared(){
+        if(shared == null){
+            synchronized (AmatsukiExecutors.class){
+                if(shared == null){
+                    shared = newBoundedPool(DEFAULT_THREADS);
+                }
+            }
+        }
+
+        return shared;
+    }
+
+    /**
+     * Retrieves the scheduler that is shared between all Amatsuki instances, this only
+     * ever waits and hands the actual work to other executors, which is why one daemon
+     * thread is enough. This is created lazily.
+     *
+     * @return the shared scheduler.
+     */
+    public static ScheduledExecutorService scheduler(){
+        if(scheduler == null){
+            synchronized (AmatsukiExecutors.class){
+                if(scheduler == null){
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(runnable, "Amatsuki-Scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    scheduler = executor;
+                }
+            }
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Creates a new pool with a fixed maximum of threads, the threads
+     * are daemon threads and are released after being idle for a minute.
+     *
+     * @param threads the maximum amount of threads.
+     * @return a new bounded executor.
+     */
+    public static ExecutorService newBoundedPool(int threads){
+        if(threads < 1)
+            throw new IllegalArgumentException("Amatsuki: the thread pool must have at least one thread.");
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every request,
+     * this is only available on JDKs that support virtual threads (21+).
+     *
+     * @return a new virtual thread per task executor.
+     * @throws UnsupportedOperationException if the JDK doesn't support virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPool(){
+        try {
+            // Reflection is needed since we still compile against Java 8.
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Amatsuki: virtual threads are not supported by this JDK (" + System.getProperty("java.version") + ").");
+        }
+    }
+
+    /**
+     * Checks whether the current JDK supports virtual threads.
+     * @return does the JDK support virtual threads?
+     */
+    public static boolean supportsVirtualThreads(){
+        try {
+            java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory factory(){
+        return runnable -> {
+            Thread thread = new Thread(runnable, "Amatsuki-Worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
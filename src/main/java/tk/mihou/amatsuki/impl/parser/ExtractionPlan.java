@@ -0,0 +1,346 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class ExtractionPlan<B> {
+
+    /**
+     * The fields of a page declared once, each as a CSS query that is compiled when the plan
+     * is built (instead of on every request) and a reader that copies the matched element into B.
+     *
+     * A field can be limited to a scope, e.g. the paragraphs of the synopsis, the plan keeps track
+     * of the scopes it is in while it walks the page so every query stays a cheap check of a single
+     * element and the whole page is read in one traversal. Fields that are shown as a list of
+     * "value label" items (statistics, profile tables) are keyed by their label rather than their position.
+     *
+     * Fields can be tagged (e.g. with a StoryField), a projection of the plan only reads the tagged
+     * fields that were asked for, the others are neither matched nor required.
+     */
+
+    private final Rule<B>[] rules;
+    private final Predicate<B> optional;
+
+    // Arrays can't be created with a type parameter, the rules are only ever Rule<B>.
+    @SuppressWarnings("unchecked")
+    private ExtractionPlan(List<Rule<B>> rules, Predicate<B> optional){
+        this.rules = (Rule<B>[]) rules.toArray(new Rule<?>[0]);
+        this.optional = optional;
+    }
+
+    /**
+     * Creates a builder for a plan.
+     * @param <B> what the fields are read into.
+     * @return a new builder.
+     */
+    public static <B> Builder<B> builder(){
+        return new Builder<>();
+    }
+
+    /**
+     * Creates a plan that only reads the untagged fields and the fields with one of the tags.
+     * @param tags the tags of the fields to read.
+     * @return the projected plan.
+     */
+    public ExtractionPlan<B> project(Set<?> tags){
+        List<Rule<B>> projected = new ArrayList<>(rules.length);
+        for(Rule<B> rule : rules){
+            if(rule.tag == null || tags.contains(rule.tag)){
+                projected.add(rule);
+            }
+        }
+
+        return new ExtractionPlan<>(projected, optional);
+    }
+
+    /**
+     * Reads every field of the plan from the page in a single traversal.
+     * @param root the page (or the element that holds every field).
+     * @param target what the fields are read into.
+     * @return the target.
+     * @throws IllegalStateException if a required field isn't on the page, which usually means the layout changed.
+     */
+    public B extract(Element root, B target){
+        Run run = new Run(root, target);
+        NodeTraversor.filter(run, root);
+
+        if(optional != null && optional.test(target))
+            return target;
+
+        for(int i = 0; i < rules.length; i++){
+            Rule<B> rule = rules[i];
+            // The lists only need their scope, they can be empty.
+            boolean found = rule.once ? run.matched[i] : rule.scope == null || run.entered[i];
+            if(rule.required && !found)
+                throw new IllegalStateException("Amatsuki: couldn't find the " + rule.field + " (" + rule.query + ") on the page.");
+
+            if(rule.labels != null){
+                for(String label : rule.requiredLabels){
+                    if(!run.labels[i].contains(label))
+                        throw new IllegalStateException("Amatsuki: couldn't find the " + label + " of the " + rule.field + " on the page.");
+                }
+            }
+        }
+
+        return target;
+    }
+
+    private class Run implements NodeFilter {
+
+        private final Element root;
+        private final B target;
+        private final boolean[] matched = new boolean[rules.length];
+        private final boolean[] entered = new boolean[rules.length];
+        @SuppressWarnings("unchecked")
+        private final List<String>[] labels = (List<String>[]) new List<?>[rules.length];
+
+        // The depth of the scope each rule is in, -1 when it is outside of its scope.
+        private final int[] scopes = new int[rules.length];
+
+        private Run(Element root, B target){
+            this.root = root;
+            this.target = target;
+            for(int i = 0; i < rules.length; i++){
+                scopes[i] = rules[i].scope == null ? 0 : -1;
+                if(rules[i].labels != null){
+                    labels[i] = new ArrayList<>(rules[i].labels.size());
+                }
+            }
+        }
+
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if(!(node instanceof Element))
+                return FilterResult.SKIP_ENTIRELY;
+
+            Element element = (Element) node;
+            for(int i = 0; i < rules.length; i++){
+                Rule<B> rule = rules[i];
+                if(scopes[i] == -1){
+                    // A scope is only entered once, like the first match of getElementsByClass, except for labels.
+                    if((!entered[i] || rule.labels != null) && rule.scope.matches(root, element)){
+                        scopes[i] = depth;
+                        entered[i] = true;
+                    }
+                    continue;
+                }
+
+                if(rule.once && matched[i])
+                    continue;
+
+                if(rule.target.matches(root, element)){
+                    read(i, rule, element);
+                }
+            }
+
+            return FilterResult.CONTINUE;
+        }
+
+        @Override
+        public FilterResult tail(Node node, int depth) {
+            for(int i = 0; i < rules.length; i++){
+                if(rules[i].scope != null && scopes[i] == depth){
+                    scopes[i] = -1;
+                }
+            }
+
+            return FilterResult.CONTINUE;
+        }
+
+        private void read(int index, Rule<B> rule, Element element){
+            matched[index] = true;
+            if(rule.labels == null){
+                rule.reader.accept(element, target);
+                return;
+            }
+
+            String label = rule.labeler.apply(element);
+            BiConsumer<Element, B> reader = rule.labels.get(label);
+            if(reader != null){
+                reader.accept(element, target);
+                labels[index].add(label);
+            }
+        }
+
+    }
+
+    private static class Rule<B> {
+
+        private final String field;
+        private final String query;
+        private final Evaluator scope;
+        private final Evaluator target;
+        private final boolean once;
+        private final boolean required;
+        private final BiConsumer<Element, B> reader;
+        private final Function<Element, String> labeler;
+        private final Map<String, BiConsumer<Element, B>> labels;
+        private final Set<String> requiredLabels;
+        private final Object tag;
+
+        private Rule(String field, String scope, String target, boolean once, boolean required, BiConsumer<Element, B> reader,
+                     Function<Element, String> labeler, Map<String, BiConsumer<Element, B>> labels, Set<String> requiredLabels, Object tag){
+            this.field = field;
+            this.tag = tag;
+            this.query = scope == null ? target : scope + " " + target;
+            this.scope = scope == null ? null : QueryParser.parse(scope);
+            this.target = QueryParser.parse(target);
+            this.once = once;
+            this.required = required;
+            this.reader = reader;
+            this.labeler = labeler;
+            this.labels = labels;
+            this.requiredLabels = requiredLabels;
+        }
+
+    }
+
+    public static class Builder<B> {
+
+        private final List<Rule<B>> rules = new ArrayList<>();
+        private Predicate<B> optional;
+        private Object tag;
+
+        /**
+         * Tags the fields that are declared after this, until the next call.
+         * @param tag the tag, null for fields that are always read.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> tagged(Object tag){
+            this.tag = tag;
+            return this;
+        }
+
+        /**
+         * Reads the first element that matches the query, the field is required.
+         * @param field the name of the field, used when it is missing.
+         * @param query a query that only looks at the element itself, e.g. meta[name=twitter:title].
+         * @param reader copies the element into the target.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> first(String field, String query, BiConsumer<Element, B> reader){
+            return first(field, null, query, reader);
+        }
+
+        /**
+         * Reads the first element inside of the scope that matches the query, the field is required.
+         * @param field the name of the field, used when it is missing.
+         * @param scope the element the field is in, only the first match is used as the scope.
+         * @param query a query that only looks at the element itself.
+         * @param reader copies the element into the target.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> first(String field, String scope, String query, BiConsumer<Element, B> reader){
+            rules.add(new Rule<>(field, scope, query, true, true, reader, null, null, null, tag));
+            return this;
+        }
+
+        /**
+         * Reads the first element that matches the query if there is one.
+         * @param field the name of the field.
+         * @param query a query that only looks at the element itself.
+         * @param reader copies the element into the target.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> optional(String field, String query, BiConsumer<Element, B> reader){
+            rules.add(new Rule<>(field, null, query, true, false, reader, null, null, null, tag));
+            return this;
+        }
+
+        /**
+         * Reads every element inside of the scope that matches the query, in the order they appear.
+         * The scope is required, but it can be empty.
+         * @param field the name of the field, used when the scope is missing.
+         * @param scope the element the field is in, only the first match is used as the scope.
+         * @param query a query that only looks at the element itself.
+         * @param reader copies each element into the target.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> each(String field, String scope, String query, BiConsumer<Element, B> reader){
+            rules.add(new Rule<>(field, scope, query, false, true, reader, null, null, null, tag));
+            return this;
+        }
+
+        /**
+         * Reads the elements inside of the scope that match the query by their label, every label is required.
+         * @param field the name of the field, used when the scope or a label is missing.
+         * @param scope the elements the field is in, unlike the other fields every match is used as a scope.
+         * @param query a query that only looks at the element itself.
+         * @param labeler reads the label of an element, e.g. "Views" of "263.5k Views".
+         * @param readers the reader of each label.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> labeled(String field, String scope, String query, Function<Element, String> labeler, Map<String, BiConsumer<Element, B>> readers){
+            return labeled(field, scope, query, labeler, readers, Collections.emptyMap());
+        }
+
+        /**
+         * Reads the elements inside of the scope that match the query by their label, only the labels
+         * of the required readers have to be on the page, e.g. rows that a user can leave out of their profile are optional.
+         * @param field the name of the field, used when the scope or a required label is missing.
+         * @param scope the elements the field is in, unlike the other fields every match is used as a scope.
+         * @param query a query that only looks at the element itself.
+         * @param labeler reads the label of an element, e.g. "Views" of "263.5k Views".
+         * @param required the reader of each label that has to be on the page.
+         * @param optional the reader of each label that can be missing.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> labeled(String field, String scope, String query, Function<Element, String> labeler,
+                                  Map<String, BiConsumer<Element, B>> required, Map<String, BiConsumer<Element, B>> optional){
+            Map<String, BiConsumer<Element, B>> readers = new LinkedHashMap<>(required);
+            readers.putAll(optional);
+            rules.add(new Rule<>(field, scope, query, false, true, null, labeler, Collections.unmodifiableMap(readers),
+                    Collections.unmodifiableSet(new LinkedHashSet<>(required.keySet())), tag));
+            return this;
+        }
+
+        /**
+         * Reads the first element inside of the scopes that matches the query and has the label, the label is required.
+         * @param field the name of the field, used when the scope or the label is missing.
+         * @param scope the elements the field is in, every match is used as a scope.
+         * @param query a query that only looks at the element itself.
+         * @param labeler reads the label of an element, e.g. "Views" of "263.5k Views".
+         * @param label the label of the field.
+         * @param reader copies the element into the target.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> labeled(String field, String scope, String query, Function<Element, String> labeler, String label, BiConsumer<Element, B> reader){
+            return labeled(field, scope, query, labeler, Collections.singletonMap(label, reader));
+        }
+
+        /**
+         * Doesn't check the required fields of pages that match the predicate, such as a disabled profile.
+         * @param optional checks the target after it was read.
+         * @return Builder for chain calling.
+         */
+        public Builder<B> requiredUnless(Predicate<B> optional){
+            this.optional = optional;
+            return this;
+        }
+
+        /**
+         * Compiles every query of the plan.
+         * @return the plan.
+         */
+        public ExtractionPlan<B> build(){
+            return new ExtractionPlan<>(new ArrayList<>(rules), optional);
+        }
+
+    }
+
+}
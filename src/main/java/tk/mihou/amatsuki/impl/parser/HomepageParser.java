@@ -0,0 +1,77 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import tk.mihou.amatsuki.entities.ForumThread;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesBuilder;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HomepageParser {
+
+    /**
+     * Parses everything that Amatsuki reads from the homepage at once.
+     * @param doc the homepage.
+     * @return the latest topics and latest updates of the homepage.
+     */
+    public static HomepageSnapshot snapshot(Document doc){
+        return new HomepageSnapshot(latestTopics(doc), latestUpdates(doc));
+    }
+
+    /**
+     * Parses the latest updates table of the homepage.
+     * @param doc the homepage.
+     * @return the latest updates.
+     */
+    public static List<LatestUpdatesResult> latestUpdates(Document doc){
+        List<LatestUpdatesResult> results = new ArrayList<>();
+        doc.getElementsByClass("wi-editfic_l-content_main").first().getElementsByClass("latest_releases_main")
+        .first().getElementsByClass("mr_fictable").first().getElementsByTag("tbody").first().getElementsByTag("tr").forEach(element -> {
+            Element td = element.getElementsByTag("td").first();
+            LatestUpdatesBuilder builder = new LatestUpdatesBuilder();
+            // Sets the thumbnail.
+            builder.setThumbnail(td.getElementsByClass("m_img_fic").first().getElementsByTag("img").first().attr("src"));
+            Element body = element.getElementsByClass("search_body ficmain").first();
+            // Sets the story details.
+            builder.setStoryURL(body.getElementsByTag("span").first().getElementsByClass("fp_title main").first().attr("href"));
+            builder.setStoryName(body.getElementsByTag("span").first().getElementsByClass("fp_title main").first().attr("title"));
+            // Sets the genres.
+            List<String> genres = new ArrayList<>();
+            body.getElementsByTag("div").first().getElementsByClass("fic_genre search ahmain").forEach(element1 -> genres.add(element1.ownText()));
+            builder.setGenres(genres);
+            // Set the chapter details.
+            builder.setChapterURL(body.getElementsByTag("div").next().first().getElementsByTag("a").attr("href"));
+            builder.setChapterTitle(body.getElementsByTag("div").next().first().getElementsByTag("a").first().ownText());
+            // Sets the author details.
+            builder.setAuthorName(body.getElementsByTag("div").last().getElementsByClass("fp_authorname").first().ownText());
+            builder.setAuthorURL(body.getElementsByTag("div").last().getElementsByTag("a").attr("href"));
+            // Last update.
+            builder.setLastUpdate(body.getElementsByTag("div").last().ownText().replaceFirst(", ", ""));
+            results.add(builder.build());
+        });
+
+        return results;
+    }
+
+    /**
+     * Parses the latest forum topics of the homepage.
+     * @param doc the homepage.
+     * @return the latest topics.
+     */
+    public static List<ForumThread> latestTopics(Document doc){
+        List<ForumThread> threads = new ArrayList<>();
+        doc.getElementsByClass("site").first().getElementsByClass("site-content-contain").first().getElementsByClass("wi_fic_wrap slider")
+                .first().getElementById("tp_latest").getElementsByTag("tr").forEach(element -> {
+                    // Adds a new thread.
+                    threads.add(new ForumThread(element.getElementsByTag("td").first().getElementsByTag("a").first().ownText(),
+                            element.getElementsByTag("td").last().ownText(),
+                            element.getElementsByTag("td").first().getElementsByTag("a").attr("href")));
+        });
+
+        return threads;
+    }
+
+}
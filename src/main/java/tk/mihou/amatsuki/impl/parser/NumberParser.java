@@ -0,0 +1,144 @@
+package tk.mihou.amatsuki.impl.parser;
+
+public class NumberParser {
+
+    /**
+     * Reads the counters that ScribbleHub displays, such as "12.3k Views",
+     * "1,204 Favorites" or "2.23m", in a single scan without regular expressions
+     * or intermediate strings.
+     *
+     * The first number of the text is read, thousands separators are skipped
+     * and a k, m or b directly after the number multiplies it.
+     */
+
+    // The most fraction digits that are kept, anything past this can't affect a counter.
+    private static final long MAX_SCALE = 1_000_000_000L;
+
+    /**
+     * Parses the first number of the text.
+     * @param text the text, e.g. "12.3k Views".
+     * @return the number, e.g. 12300.
+     * @throws NumberFormatException if there is no number or it doesn't fit in a long.
+     */
+    public static long parseLong(CharSequence text){
+        long value = 0;
+        long fraction = 0;
+        long scale = 1;
+        long multiplier = 1;
+        boolean digits = false;
+        boolean decimal = false;
+
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(c >= '0' && c <= '9'){
+                digits = true;
+                if(!decimal){
+                    value = digit(value, c, text);
+                } else if(scale < MAX_SCALE){
+                    fraction = fraction * 10 + (c - '0');
+                    scale *= 10;
+                }
+                continue;
+            }
+
+            if(!digits)
+                continue;
+
+            if(c == ',' && !decimal)
+                continue;
+
+            if(c == '.' && !decimal){
+                decimal = true;
+                continue;
+            }
+
+            // The suffix has to follow the number directly, "3 Chapters/Week" isn't 3000.
+            multiplier = multiplier(c, text.charAt(i - 1));
+            break;
+        }
+
+        if(!digits)
+            throw new NumberFormatException("Amatsuki: there is no number in \"" + text + "\".");
+
+        try {
+            return Math.addExact(Math.multiplyExact(value, multiplier), fraction * multiplier / scale);
+        } catch (ArithmeticException e){
+            throw new NumberFormatException("Amatsuki: " + text + " doesn't fit in a long.");
+        }
+    }
+
+    /**
+     * Parses the first number of the text.
+     * @param text the text, e.g. "1,204 Favorites".
+     * @return the number, e.g. 1204.
+     * @throws NumberFormatException if there is no number or it doesn't fit in an int.
+     */
+    public static int parseInt(CharSequence text){
+        long value = parseLong(text);
+        if(value > Integer.MAX_VALUE)
+            throw new NumberFormatException("Amatsuki: " + text + " doesn't fit in an int.");
+
+        return (int) value;
+    }
+
+    /**
+     * Parses the first number of the text, falling back when there is none.
+     * @param text the text, can be null.
+     * @param fallback the value to return when the text has no number.
+     * @return the number or the fallback.
+     */
+    public static long parseLong(CharSequence text, long fallback){
+        if(text == null)
+            return fallback;
+
+        try {
+            return parseLong(text);
+        } catch (NumberFormatException e){
+            return fallback;
+        }
+    }
+
+    /**
+     * Keeps the digits and dots of the text, as well as the k and m suffixes if allowed,
+     * this is how the views and word counts are kept as text (e.g. "12.3k").
+     * @param text the text.
+     * @param suffixes whether k and m should be kept.
+     * @return the stripped text.
+     */
+    public static String strip(String text, boolean suffixes){
+        StringBuilder builder = new StringBuilder(text.length());
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if((c >= '0' && c <= '9') || c == '.' || (suffixes && (c == 'k' || c == 'm'))){
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static long digit(long value, char digit, CharSequence text){
+        try {
+            return Math.addExact(Math.multiplyExact(value, 10), digit - '0');
+        } catch (ArithmeticException e){
+            throw new NumberFormatException("Amatsuki: " + text + " doesn't fit in a long.");
+        }
+    }
+
+    private static long multiplier(char suffix, char previous){
+        if(previous < '0' || previous > '9')
+            return 1;
+
+        switch (suffix){
+            case 'k': case 'K':
+                return 1_000L;
+            case 'm': case 'M':
+                return 1_000_000L;
+            case 'b': case 'B':
+                return 1_000_000_000L;
+            default:
+                return 1;
+        }
+    }
+
+}
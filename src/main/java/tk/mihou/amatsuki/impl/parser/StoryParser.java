@@ -0,0 +1,143 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import tk.mihou.amatsuki.api.connection.PageCutoff;
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.StoryBuilder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StoryParser {
+
+    // Everything that is parsed comes before the end of the tags, the chapters and comments that follow are never read.
+    public static final PageCutoff CUTOFF = PageCutoff.element("div", "wi_fic_showtags");
+
+    // Everything that is in the head of the page, the meta tags.
+    private static final PageCutoff HEAD = PageCutoff.after("</head>");
+
+    // Everything up to the statistics, which come before the synopsis, genres and tags.
+    private static final PageCutoff STATISTICS = PageCutoff.element("div", "fic_stats");
+
+    // Every field of a story page, compiled once and tagged with the field it belongs to.
+    private static final ExtractionPlan<Fields> PLAN = ExtractionPlan.<Fields>builder()
+            // Retrieving basic information from meta tags.
+            .tagged(StoryField.TITLE).first("title", "meta[name=twitter:title]", (e, f) -> f.builder.setTitle(e.attr("content")))
+            .tagged(StoryField.THUMBNAIL).first("image", "meta[name=twitter:image]", (e, f) -> f.builder.setImage(e.attr("content")))
+            .tagged(StoryField.CREATOR).first("creator", "meta[name=twitter:creator]", (e, f) -> f.builder.setCreator(e.attr("content")))
+            // Retrieve SID (UID but for series).
+            .tagged(StoryField.SID).first("sid", "input#mypostid", (e, f) -> f.builder.setSID(Integer.parseInt(e.attr("value"))))
+            // The rating and the amount of ratings, e.g. "4.52 (312 ratings)".
+            .tagged(StoryField.RATING).first("rating", ".fic_rate", "span", (e, f) -> {
+                String[] rating = e.text().split(" ");
+                f.builder.setRating(Double.parseDouble(rating[0]));
+                f.builder.setRatings(NumberParser.parseInt(rating[1]));
+            })
+            // The statistics are keyed by their label, e.g. "263.5k Views".
+            .tagged(StoryField.VIEWS).labeled("statistics", ".fic_stats", "span.st_item", StoryParser::label, "Views",
+                    (e, f) -> f.builder.setViews(NumberParser.strip(e.text(), true)))
+            .tagged(StoryField.FAVORITES).labeled("statistics", ".fic_stats", "span.st_item", StoryParser::label, "Favorites",
+                    (e, f) -> f.builder.setFavorites(e.text()))
+            .tagged(StoryField.CHAPTERS).labeled("statistics", ".fic_stats", "span.st_item", StoryParser::label, "Chapters",
+                    (e, f) -> f.builder.setChapters(NumberParser.parseInt(e.text())))
+            .tagged(StoryField.CHAPTERS_PER_WEEK).labeled("statistics", ".fic_stats", "span.st_item", StoryParser::label, "Chapters/Week",
+                    (e, f) -> f.builder.setChapterPerWeek(NumberParser.parseInt(e.text())))
+            .tagged(StoryField.READERS).labeled("statistics", ".fic_stats", "span.st_item", StoryParser::label, "Readers",
+                    (e, f) -> f.builder.setReaders(NumberParser.parseInt(e.text())))
+            // Since whitespace is killed by Jsoup, we add '\n' after every <p>.
+            .tagged(StoryField.SYNOPSIS).each("synopsis", ".wi_fic_desc", "p", (e, f) -> f.synopsis.append(e.ownText()).append("\n"))
+            .tagged(StoryField.GENRES).each("genres", ".wi_fic_genre", ".fic_genre", (e, f) -> f.genres.add(e.ownText()))
+            .tagged(StoryField.TAGS).each("tags", ".wi_fic_showtags", "span a", (e, f) -> f.tags.add(e.ownText()))
+            .build();
+
+    // The plans of the field sets that were asked for, there are only ever a handful of them.
+    private static final Map<Set<StoryField>, ExtractionPlan<Fields>> PROJECTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Parses a story page (https://www.scribblehub.com/series/...).
+     * @param doc the story page.
+     * @param url the url of the story.
+     * @return the story.
+     */
+    public static Story parse(Document doc, String url){
+        return parse(doc, url, StoryField.ALL);
+    }
+
+    /**
+     * Parses only some fields of a story page, the others are left empty.
+     * @param doc the story page, it only has to hold the fields (see {@link #cutoff(Set)}).
+     * @param url the url of the story.
+     * @param fields the fields to read.
+     * @return the story, with only the given fields.
+     */
+    public static Story parse(Document doc, String url, Set<StoryField> fields){
+        ExtractionPlan<Fields> plan = fields.containsAll(StoryField.ALL) ? PLAN
+                : PROJECTIONS.computeIfAbsent(EnumSet.copyOf(fields), PLAN::project);
+        Fields read = plan.extract(doc, new Fields(fields));
+        StoryBuilder entity = read.builder;
+
+        // Deploying all the data onto the entity.
+        if(read.synopsis != null)
+            entity.setSynopsis(read.synopsis.toString());
+        if(read.genres != null)
+            entity.setGenres(read.genres);
+        if(read.tags != null)
+            entity.setTags(read.tags);
+
+        // I wonder why I was getting the URL when there is already a URL provided?
+        entity.setUrl(url);
+        entity.setFields(fields);
+        return entity.build();
+    }
+
+    /**
+     * Retrieves how much of a story page has to be read for the fields.
+     * @param fields the fields that are read.
+     * @return the cutoff of the page.
+     */
+    public static PageCutoff cutoff(Set<StoryField> fields){
+        if(fields.contains(StoryField.SYNOPSIS) || fields.contains(StoryField.GENRES) || fields.contains(StoryField.TAGS))
+            return CUTOFF;
+
+        for(StoryField field : fields){
+            if(field != StoryField.TITLE && field != StoryField.THUMBNAIL && field != StoryField.CREATOR)
+                return STATISTICS;
+        }
+
+        return HEAD;
+    }
+
+    /**
+     * Reads the label of a statistic, which is everything after its number.
+     * @param stat the statistic, e.g. "263.5k Views".
+     * @return the label, e.g. "Views".
+     */
+    private static String label(Element stat){
+        String text = stat.text();
+        return text.substring(text.indexOf(' ') + 1);
+    }
+
+    private static class Fields {
+
+        private final StoryBuilder builder = new StoryBuilder();
+
+        // Only the lists that are read are created, the others stay null.
+        private final StringBuilder synopsis;
+        private final List<String> genres;
+        private final List<String> tags;
+
+        private Fields(Set<StoryField> fields){
+            this.synopsis = fields.contains(StoryField.SYNOPSIS) ? new StringBuilder() : null;
+            this.genres = fields.contains(StoryField.GENRES) ? new ArrayList<>() : null;
+            this.tags = fields.contains(StoryField.TAGS) ? new ArrayList<>() : null;
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import tk.mihou.amatsuki.entities.story.lower.StoryResultBuilder;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StoryResultsExtractor {
+
+    /**
+     * Extracts the result boxes (search_main_box) that are shared by the search,
+     * rankings, latest series and series finder pages.
+     *
+     * The statistics of a box are read in a single walk over the stat spans,
+     * and the numbers are read through NumberParser without any regular expressions.
+     */
+
+    /**
+     * Extracts every result box on the page.
+     * @param page the page (or any element containing the result boxes).
+     * @return the results in the order they appear.
+     */
+    public static List<StoryResults> extract(Element page){
+        Elements boxes = page.getElementsByClass("search_main_box");
+        List<StoryResults> results = new ArrayList<>(boxes.size());
+        for(Element box : boxes){
+            results.add(extractBox(box));
+        }
+
+        return results;
+    }
+
+    /**
+     * Extracts a single result box.
+     * @param box the search_main_box element.
+     * @return the result.
+     */
+    public static StoryResults extractBox(Element box){
+        StoryResultBuilder builder = new StoryResultBuilder();
+
+        // Gets the thumbnail and rating.
+        Elements images = box.getElementsByClass("search_img");
+        builder.setThumbnail(images.select("img").attr("src"));
+        builder.setRating(Double.parseDouble(NumberParser.strip(images.first().getElementsByClass("search_ratings").first().ownText(), false)));
+
+        // Get the extra details.
+        Element body = box.getElementsByClass("search_body").first();
+        Elements title = body.getElementsByClass("search_title").select("a");
+        builder.setName(title.first().text());
+        builder.setUrl(title.attr("href"));
+
+        // Retrieve both synopsis.
+        String synopsis = body.ownText();
+        StringBuilder str = new StringBuilder(synopsis);
+        for(String s : body.select("span.testhide").eachText()){
+            str.append("\n").append(s);
+        }
+
+        builder.setShortSynopsis(synopsis);
+        builder.setFullSynopsis(str.toString().replace("<<less", ""));
+
+        // Retrieve all the genres.
+        Elements links = body.getElementsByClass("search_genre").first().getElementsByTag("a");
+        List<String> genres = new ArrayList<>(links.size());
+        for(Element link : links){
+            genres.add(link.ownText());
+        }
+
+        builder.setGenres(genres);
+
+        // Retrieve all statistics, walking the stat spans once.
+        Elements spans = body.getElementsByClass("search_stats").first().getElementsByTag("span");
+        Element stat = spans.first();
+        builder.setViews(NumberParser.strip(stat.ownText(), true));
+        builder.setFavorites(NumberParser.parseLong((stat = stat.nextElementSibling()).ownText()));
+        builder.setChapters(NumberParser.parseInt((stat = stat.nextElementSibling()).ownText()));
+        builder.setChw(NumberParser.parseInt((stat = stat.nextElementSibling()).ownText()));
+        builder.setReaders(NumberParser.parseInt((stat = stat.nextElementSibling()).ownText()));
+        builder.setReviews(NumberParser.parseInt((stat = stat.nextElementSibling()).ownText()));
+        builder.setWord(NumberParser.strip((stat = stat.nextElementSibling()).ownText(), true));
+        builder.setLastUpdated(stat.nextElementSibling().ownText());
+
+        Element author = spans.last().getElementsByTag("a").first();
+        builder.setCreator(author.ownText());
+        builder.setAuthorURL(author.attr("href"));
+        return builder.build();
+    }
+
+}
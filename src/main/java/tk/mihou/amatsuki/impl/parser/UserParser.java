@@ -0,0 +1,137 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import tk.mihou.amatsuki.api.connection.PageCutoff;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.entities.user.UserBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public class UserParser {
+
+    // Everything that is parsed comes before the end of the statistics table, or the message of a disabled profile.
+    public static final PageCutoff CUTOFF = PageCutoff.element("table", "table_pro_overview", "table_pro_overview")
+            .orElement("div", "error_msg_profile");
+
+    // Every field of a profile page, compiled once.
+    private static final ExtractionPlan<Fields> PLAN = ExtractionPlan.<Fields>builder()
+            // Validate is user has disabled their profile, the name is then taken from the title.
+            .optional("disabled", ".error_msg_profile", (e, f) -> f.disabled = e.ownText().contains("disable their profile."))
+            .optional("title", "title", (e, f) -> f.title = e.ownText())
+            // Collects the meta tags information.
+            .first("avatar", ".site-content-contain.profile", "meta[property=og:image]", (e, f) -> f.builder.setAvatar(e.attr("content")))
+            .first("name", ".site-content-contain.profile", "meta[property=og:description]", (e, f) -> f.builder.setName(e.attr("content").split("'s")[0]))
+            .first("uid", ".site-content-contain.profile", "input[name=authorid]", (e, f) -> f.builder.setUID(Integer.parseInt(e.attr("value"))))
+            // Since whitespace is killed by Jsoup, we simply add '\n' after every <p>.
+            .each("bio", ".user_bio_profile", "p", (e, f) -> f.bio.append(e.text()).append("\n"))
+            // Both overview tables (the statistics and the basic information) are keyed by the label of each row,
+            // the basic information is filled in by the user so any of its rows can be missing.
+            .labeled("overview", "table.table_pro_overview", "tr", UserParser::label, statistics(), information())
+            .requiredUnless(f -> f.disabled)
+            .build();
+
+    /**
+     * Parses a profile page (https://www.scribblehub.com/profile/...),
+     * profiles that were disabled by their user are returned with placeholder values.
+     *
+     * @param doc the profile page.
+     * @param url the url of the profile.
+     * @return the user.
+     */
+    public static User parse(Document doc, String url){
+        Fields fields = new Fields();
+        UserBuilder builder = fields.builder;
+
+        // The basic information that the user left out of their profile stays empty.
+        builder.setLastActive("");
+        builder.setBirthday("");
+        builder.setGender("");
+        builder.setLocation("");
+        builder.setHomepage("");
+        PLAN.extract(doc, fields);
+
+        if(fields.disabled){
+            // Grab the UID (since this is important) for RSS.
+            builder.setUID(NumberParser.parseInt(url));
+
+            // Also grab the user's name.
+            builder.setName(fields.title.replaceFirst("'s Profile \\| Scribble Hub", ""));
+
+            // Default all the data.
+            builder.setHomepage("Disabled");
+            builder.setLocation("Disabled");
+            builder.setBirthday("Disabled");
+            builder.setBio("This user has disabled their profile.");
+            builder.setLastActive("Disabled");
+            builder.setGender("Disabled");
+            builder.setDisabled(true);
+            builder.setAvatar("https://cdn.scribblehub.com/default/avatar.jpg");
+            builder.setUrl(url);
+
+            // Default all the statistic numbers.
+            builder.setTotalViews(0);
+            builder.setTotalFollowers(0);
+            builder.setTotalReaders(0);
+            builder.setTotalReviews(0);
+            builder.setTotalSeries(0);
+            builder.setTotalWords(0);
+            return builder.build();
+        }
+
+        builder.setBio(fields.bio.toString());
+
+        // Sets the URL.
+        builder.setUrl(url);
+        return builder.build();
+    }
+
+    private static Map<String, BiConsumer<Element, Fields>> information(){
+        Map<String, BiConsumer<Element, Fields>> information = new HashMap<>();
+        // The basic information of the author, date, birthday and etc.
+        information.put("Last Active", (e, f) -> f.builder.setLastActive(value(e).text()));
+        information.put("Birthday", (e, f) -> f.builder.setBirthday(value(e).text()));
+        information.put("Gender", (e, f) -> f.builder.setGender(value(e).text()));
+        information.put("Location", (e, f) -> f.builder.setLocation(value(e).text()));
+        information.put("Homepage", (e, f) -> f.builder.setHomepage(value(e).getElementsByTag("a").text()));
+        return information;
+    }
+
+    private static Map<String, BiConsumer<Element, Fields>> statistics(){
+        Map<String, BiConsumer<Element, Fields>> statistics = new HashMap<>();
+        // The author statistics, every profile has these.
+        statistics.put("Series", (e, f) -> f.builder.setTotalSeries(NumberParser.parseInt(value(e).text())));
+        statistics.put("Words", (e, f) -> f.builder.setTotalWords(NumberParser.parseLong(value(e).text())));
+        statistics.put("Views", (e, f) -> f.builder.setTotalViews(NumberParser.parseLong(value(e).text())));
+        statistics.put("Reviews", (e, f) -> f.builder.setTotalReviews(NumberParser.parseInt(value(e).text())));
+        statistics.put("Readers", (e, f) -> f.builder.setTotalReaders(NumberParser.parseInt(value(e).text())));
+        statistics.put("Followers", (e, f) -> f.builder.setTotalFollowers(NumberParser.parseInt(value(e).text())));
+        return statistics;
+    }
+
+    /**
+     * Reads the label of a row of the overview tables.
+     * @param row the row, e.g. {@code <tr><th>Birthday</th><td>...</td></tr>}.
+     * @return the label, e.g. "Birthday", empty if the row has none.
+     */
+    private static String label(Element row){
+        Element header = row.getElementsByTag("th").first();
+        return header == null ? "" : header.text().trim();
+    }
+
+    private static Element value(Element row){
+        return row.getElementsByTag("td").first();
+    }
+
+    private static class Fields {
+
+        private final UserBuilder builder = new UserBuilder();
+        private final StringBuilder bio = new StringBuilder();
+        private boolean disabled;
+        private String title;
+
+    }
+
+}
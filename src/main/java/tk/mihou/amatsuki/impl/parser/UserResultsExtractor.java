@@ -0,0 +1,31 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.nodes.Element;
+import tk.mihou.amatsuki.entities.user.lower.UserResultBuilder;
+import tk.mihou.amatsuki.entities.user.lower.UserResults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserResultsExtractor {
+
+    /**
+     * Extracts the users of a search page.
+     * @param page the search page.
+     * @return the users in the order they appear.
+     */
+    public static List<UserResults> extract(Element page){
+        List<UserResults> collection = new ArrayList<>();
+        page.getElementsByClass("sb_box search").forEach(element -> element.getElementsByClass("s_user_link").forEach(resultA -> resultA.getElementsByClass("s_user_results").forEach(results -> {
+            UserResultBuilder builder = new UserResultBuilder();
+            Element e = results.getElementsByClass("sur_image").first().getElementsByTag("img").first();
+            builder.setAvatar(e.attr("src"));
+            builder.setUser(e.attr("alt"));
+            builder.setLink(resultA.attr("href"));
+            collection.add(builder.build());
+        })));
+
+        return collection;
+    }
+
+}
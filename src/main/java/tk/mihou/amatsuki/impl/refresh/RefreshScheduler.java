@@ -0,0 +1,193 @@
+package tk.mihou.amatsuki.impl.refresh;
+
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.RequestCoalescer;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+import tk.mihou.amatsuki.impl.executor.AmatsukiExecutors;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class RefreshScheduler {
+
+    /**
+     * Keeps registered cache keys warm by loading them again shortly before
+     * they expire, the new result is swapped into the cache by the loader itself.
+     *
+     * Keys whose cache type is disabled are skipped until it is enabled again, and a key that couldn't
+     * be refreshed (nothing was stored) waits longer after every failure instead of
+     * being fetched again on every tick.
+     */
+
+    // The first wait after a failed refresh, doubled after every failure up to the maximum.
+    private static final long BACKOFF = TimeUnit.SECONDS.toMillis(30);
+    private static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(30);
+
+    private final Map<String, Refresh> loaders = new ConcurrentHashMap<>();
+
+    // The keys that are waiting for their slot or being loaded.
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // The refreshes only wait on the scheduler, the loaders hand the requests to the executor of the connector.
+    private final ScheduledExecutorService scheduler = AmatsukiExecutors.scheduler();
+
+    private volatile long lead = TimeUnit.MINUTES.toMillis(5);
+    private volatile long spacing = TimeUnit.SECONDS.toMillis(2);
+    private ScheduledFuture<?> task;
+
+    // The earliest time the next refresh can start, used to spread refreshes out.
+    private long nextSlot = 0;
+
+    /**
+     * Registers a key to keep warm, keys of a disabled cache type are only
+     * refreshed once the type is enabled.
+     * @param key the cache key.
+     * @param type the cache type of the key.
+     * @param loader the loader which fetches the key and stores it into the cache.
+     */
+    public void register(String key, CacheTypes type, Supplier<CompletableFuture<?>> loader){
+        loaders.put(key, new Refresh(type, loader));
+    }
+
+    /**
+     * Stops keeping the key warm.
+     * @param key the cache key.
+     */
+    public void unregister(String key){
+        loaders.remove(key);
+    }
+
+    /**
+     * Checks whether there are any keys registered.
+     * @return are there registered keys?
+     */
+    public boolean isEmpty(){
+        return loaders.isEmpty();
+    }
+
+    /**
+     * Starts checking the registered keys, a key is refreshed once it is about
+     * to expire within the lead time, or when it isn't cached at all.
+     *
+     * @param lead how long before the expiry to refresh.
+     * @param spacing the minimum time between two refreshes.
+     * @param unit the time unit of the lead and spacing.
+     */
+    public synchronized void start(long lead, long spacing, TimeUnit unit){
+        this.lead = unit.toMillis(lead);
+        this.spacing = unit.toMillis(spacing);
+
+        if(task != null){
+            task.cancel(false);
+        }
+
+        long interval = Math.max(1000, Math.min(this.lead / 4, TimeUnit.MINUTES.toMillis(1)));
+        task = scheduler.scheduleWithFixedDelay(this::tick, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing, the registered keys are kept.
+     */
+    public synchronized void stop(){
+        if(task != null){
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Stops refreshing and forgets every key, refreshes that are waiting for their slot are dropped.
+     * The scheduler is shared with the other instances and is left running.
+     */
+    public synchronized void shutdown(){
+        stop();
+        loaders.clear();
+    }
+
+    private void tick(){
+        long now = System.currentTimeMillis();
+        loaders.forEach((key, refresh) -> {
+            if(!CacheManager.isEnabled(refresh.type) || refresh.retryAt > now)
+                return;
+
+            long expiry = CacheManager.getExpiry(key);
+
+            // Each key gets its own offset within the lead so keys stored together don't all come due together.
+            long threshold = lead - offset(key);
+            if(expiry != -1 && expiry - now > threshold)
+                return;
+
+            // Already waiting for its slot (or being loaded) since an earlier tick.
+            if(RequestCoalescer.isInflight(key) || !pending.add(key))
+                return;
+
+            long delay = Math.max(0, nextSlot - now);
+            nextSlot = now + delay + spacing;
+            scheduler.schedule(() -> refresh(key, refresh), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void refresh(String key, Refresh refresh){
+        // The key may have been refreshed by someone else while we were waiting for our slot.
+        long expiry = CacheManager.getExpiry(key);
+        if(loaders.get(key) != refresh || !CacheManager.isEnabled(refresh.type) || RequestCoalescer.isInflight(key)
+                || (expiry != -1 && expiry - System.currentTimeMillis() > lead)){
+            pending.remove(key);
+            return;
+        }
+
+        try {
+            refresh.loader.get().whenComplete((result, throwable) -> {
+                // The loaders store the result themselves, a key that still isn't cached wasn't refreshed.
+                boolean stored = throwable == null && result != null && CacheManager.getExpiry(key) > System.currentTimeMillis();
+                if(stored){
+                    refresh.failures = 0;
+                    refresh.retryAt = 0;
+                } else {
+                    refresh.failures++;
+                    refresh.retryAt = System.currentTimeMillis() + backoff(refresh.failures);
+                }
+
+                pending.remove(key);
+            });
+        } catch (RuntimeException e) {
+            refresh.failures++;
+            refresh.retryAt = System.currentTimeMillis() + backoff(refresh.failures);
+            pending.remove(key);
+            Logger.getLogger("Amatsuki").log(Level.WARNING, "Amatsuki: failed to refresh " + key + ": " + e.getMessage());
+        }
+    }
+
+    private static long backoff(int failures){
+        return Math.min(MAX_BACKOFF, BACKOFF << Math.min(failures - 1, 10));
+    }
+
+    private long offset(String key){
+        // Anywhere within the first half of the lead, based on the key so it is stable between ticks.
+        return Math.floorMod(key.hashCode(), Math.max(1, lead / 2));
+    }
+
+    private static class Refresh {
+
+        private final CacheTypes type;
+        private final Supplier<CompletableFuture<?>> loader;
+
+        // How many refreshes failed in a row, and when the key can be tried again.
+        private volatile int failures;
+        private volatile long retryAt;
+
+        private Refresh(CacheTypes type, Supplier<CompletableFuture<?>> loader){
+            this.type = type;
+            this.loader = loader;
+        }
+
+    }
+
+}
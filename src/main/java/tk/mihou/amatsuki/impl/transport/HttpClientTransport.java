@@ -0,0 +1,36 @@
+package tk.mihou.amatsuki.impl.transport;
+
+import tk.mihou.amatsuki.api.connection.AmatsukiTransport;
+import tk.mihou.amatsuki.api.connection.TransportRequest;
+import tk.mihou.amatsuki.api.connection.TransportResponse;
+
+public class HttpClientTransport implements AmatsukiTransport {
+
+    /**
+     * The HTTP/2 transport is built on java.net.http.HttpClient, which only exists on Java 11
+     * and newer. The jar is a multi-release jar: on Java 11+ this class is replaced by the one
+     * under META-INF/versions/11 (src/main/java11), on Java 8 only this placeholder is found.
+     */
+
+    /**
+     * Creates the HTTP/2 transport.
+     * @throws UnsupportedOperationException if the JDK is older than Java 11.
+     */
+    public HttpClientTransport(){
+        throw new UnsupportedOperationException("Amatsuki: the HTTP/2 transport requires Java 11 or newer (" + System.getProperty("java.version") + ").");
+    }
+
+    /**
+     * Checks whether the HTTP/2 transport can be used on this JDK.
+     * @return is the JDK Java 11 or newer?
+     */
+    public static boolean isSupported(){
+        return false;
+    }
+
+    @Override
+    public TransportResponse fetch(TransportRequest request){
+        throw new UnsupportedOperationException("Amatsuki: the HTTP/2 transport requires Java 11 or newer.");
+    }
+
+}
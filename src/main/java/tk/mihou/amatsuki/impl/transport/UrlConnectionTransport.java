@@ -0,0 +1,218 @@
+package tk.mihou.amatsuki.impl.transport;
+
+import org.jsoup.HttpStatusException;
+import tk.mihou.amatsuki.api.connection.AmatsukiTransport;
+import tk.mihou.amatsuki.api.connection.PageCutoff;
+import tk.mihou.amatsuki.api.connection.TransportRequest;
+import tk.mihou.amatsuki.api.connection.TransportResponse;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+public class UrlConnectionTransport implements AmatsukiTransport {
+
+    /**
+     * The default transport, built on HttpURLConnection which keeps the connections
+     * to a host open and reuses them between requests as long as every body is read
+     * to the end and closed, which is always done here (error bodies included).
+     *
+     * Bodies are requested gzipped and decompressed while they are read, the bytes
+     * that went over the wire and the bytes after decompression are both counted.
+     * When the request has a cutoff, the body is only read up to the cutoff and the
+     * rest of the page is left to the connection (which drains it if it is small enough to be reused).
+     */
+
+    // The most redirects that are followed before giving up, redirects between http and https are followed too.
+    private static final int MAX_REDIRECTS = 10;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder decoded = new LongAdder();
+
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        URL url = new URL(request.getUrl());
+        for(int redirects = 0; redirects <= MAX_REDIRECTS; redirects++){
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(request.getTimeout());
+            connection.setReadTimeout(request.getTimeout());
+            connection.setRequestProperty("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            request.getHeaders().forEach(connection::setRequestProperty);
+
+            requests.increment();
+            int status = connection.getResponseCode();
+            if(status >= 300 && status < 400 && status != HttpURLConnection.HTTP_NOT_MODIFIED){
+                String location = connection.getHeaderField("Location");
+                drain(connection);
+
+                if(location == null)
+                    throw new HttpStatusException("Redirect without a location", status, url.toString());
+
+                url = new URL(url, location);
+                continue;
+            }
+
+            if(status >= 400){
+                drain(connection);
+                throw new HttpStatusException("HTTP error fetching URL", status, url.toString());
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(connection.getContentLength() > 0 ? connection.getContentLength() : 32 * 1024);
+            boolean truncated = read(connection, body, request.getCutoff());
+            return new TransportResponse(url.toString(), status, body.toByteArray(), charset(connection.getContentType()), headers(connection), truncated);
+        }
+
+        throw new IOException("Too many redirects occurred trying to load URL " + request.getUrl());
+    }
+
+    /**
+     * Retrieves the amount of requests that were sent, redirects included.
+     * @return the amount of requests.
+     */
+    public long getRequests(){
+        return requests.sum();
+    }
+
+    /**
+     * Retrieves the amount of body bytes that went over the wire, before decompression.
+     * @return the amount of bytes received.
+     */
+    public long getBytesReceived(){
+        return received.sum();
+    }
+
+    /**
+     * Retrieves the amount of body bytes after decompression, which is what is parsed.
+     * @return the amount of bytes decoded.
+     */
+    public long getBytesDecoded(){
+        return decoded.sum();
+    }
+
+    private boolean read(HttpURLConnection connection, ByteArrayOutputStream out, PageCutoff cutoff) throws IOException {
+        boolean truncated;
+        try (CountingInputStream counting = new CountingInputStream(connection.getInputStream());
+             InputStream stream = "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(counting, 8192) : counting){
+            truncated = read(stream, out, cutoff);
+            received.add(counting.count);
+        }
+
+        decoded.add(out.size());
+        return truncated;
+    }
+
+    /**
+     * Reads the body until its end or until the cutoff, shared with the HTTP/2 transport.
+     * @param stream the decompressed body.
+     * @param out where the body is written to.
+     * @param cutoff where to stop reading, null to read the whole body.
+     * @return was the reading stopped at the cutoff?
+     * @throws IOException if the body couldn't be read.
+     */
+    static boolean read(InputStream stream, ByteArrayOutputStream out, PageCutoff cutoff) throws IOException {
+        PageCutoff.Scanner scanner = cutoff == null ? null : cutoff.scanner();
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = stream.read(buffer)) != -1){
+            int end = scanner == null ? -1 : scanner.update(buffer, 0, read);
+            if(end != -1){
+                // The body always ends right at the cutoff, which keeps the hash of an unchanged page the same.
+                out.write(buffer, 0, end);
+                return true;
+            }
+
+            out.write(buffer, 0, read);
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the body that won't be used to the end, which allows the connection to be reused.
+     * @param connection the connection.
+     */
+    private static void drain(HttpURLConnection connection){
+        try (InputStream stream = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream()){
+            if(stream == null)
+                return;
+
+            byte[] buffer = new byte[8192];
+            while(stream.read(buffer) != -1){
+                // Discarded.
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Reads the charset of a Content-Type header, shared with the HTTP/2 transport.
+     * @param contentType the value of the header, can be null.
+     * @return the charset, null if there is none.
+     */
+    static String charset(String contentType){
+        if(contentType == null)
+            return null;
+
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if(index == -1)
+            return null;
+
+        String charset = contentType.substring(index + 8).trim();
+        int end = charset.indexOf(';');
+        if(end != -1){
+            charset = charset.substring(0, end).trim();
+        }
+
+        charset = charset.replace("\"", "").replace("'", "");
+        return charset.isEmpty() ? null : charset;
+    }
+
+    private static Map<String, String> headers(HttpURLConnection connection){
+        Map<String, String> headers = new HashMap<>();
+        for(Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()){
+            // The status line is returned with a null name.
+            if(header.getKey() != null && !header.getValue().isEmpty()){
+                headers.put(header.getKey(), connection.getHeaderField(header.getKey()));
+            }
+        }
+
+        return headers;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if(read != -1)
+                count++;
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if(read > 0)
+                count += read;
+
+            return read;
+        }
+
+    }
+
+}
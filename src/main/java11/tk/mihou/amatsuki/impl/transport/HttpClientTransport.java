@@ -0,0 +1,152 @@
+package tk.mihou.amatsuki.impl.transport;
+
+import org.jsoup.HttpStatusException;
+import tk.mihou.amatsuki.api.connection.AmatsukiTransport;
+import tk.mihou.amatsuki.api.connection.PageCutoff;
+import tk.mihou.amatsuki.api.connection.TransportRequest;
+import tk.mihou.amatsuki.api.connection.TransportResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+public class HttpClientTransport implements AmatsukiTransport {
+
+    /**
+     * The HTTP/2 transport, every request to a host is multiplexed over one connection
+     * and is sent with sendAsync, so no thread is blocked while a page is on its way.
+     * Only the decompression and parsing of the page run on the executor of the connector,
+     * which means hundreds of pages can be in-flight with only a handful of threads.
+     *
+     * Servers that don't speak HTTP/2 are answered over HTTP/1.1 with persistent connections.
+     * Requests with a cutoff are read as a stream on the executor instead, closing it at the
+     * cutoff resets the HTTP/2 stream so the rest of the page is never sent.
+     */
+
+    private final HttpClient client;
+
+    /**
+     * Creates the HTTP/2 transport.
+     */
+    public HttpClientTransport(){
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Checks whether the HTTP/2 transport can be used on this JDK.
+     * @return is the JDK Java 11 or newer?
+     */
+    public static boolean isSupported(){
+        return true;
+    }
+
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        try {
+            return fetchAsync(request, Runnable::run).get();
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> fetchAsync(TransportRequest request, Executor executor){
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()))
+                .timeout(Duration.ofMillis(request.getTimeout()))
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        request.getHeaders().forEach(builder::setHeader);
+
+        if(request.getCutoff() != null)
+            return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream())
+                    .thenApplyAsync(response -> streamed(response, request.getCutoff()), executor);
+
+        // The body is decompressed on the executor instead of the threads of the client.
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApplyAsync(this::response, executor);
+    }
+
+    private TransportResponse streamed(HttpResponse<InputStream> response, PageCutoff cutoff){
+        String url = response.uri().toString();
+        String charset = UrlConnectionTransport.charset(response.headers().firstValue("Content-Type").orElse(null));
+        boolean gzip = response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+        try (InputStream raw = response.body()){
+            if(response.statusCode() >= 400)
+                throw new CompletionException(new HttpStatusException("HTTP error fetching URL", response.statusCode(), url));
+
+            // A 304 has no body to decompress.
+            if(response.statusCode() == 304)
+                return new TransportResponse(url, 304, new byte[0], charset, headers(response));
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(32 * 1024);
+            try (InputStream stream = gzip ? new GZIPInputStream(raw, 8192) : raw){
+                boolean truncated = UrlConnectionTransport.read(stream, body, cutoff);
+                return new TransportResponse(url, response.statusCode(), body.toByteArray(), charset, headers(response), truncated);
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private TransportResponse response(HttpResponse<byte[]> response){
+        String url = response.uri().toString();
+        if(response.statusCode() >= 400)
+            throw new CompletionException(new HttpStatusException("HTTP error fetching URL", response.statusCode(), url));
+
+        try {
+            byte[] body = response.body();
+            if(response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false)){
+                body = gunzip(body);
+            }
+
+            return new TransportResponse(url, response.statusCode(), body, UrlConnectionTransport.charset(response.headers().firstValue("Content-Type").orElse(null)), headers(response));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 8);
+        try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(body), 8192)){
+            stream.transferTo(out);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> headers(HttpResponse<?> response){
+        Map<String, String> headers = new HashMap<>();
+        for(Map.Entry<String, List<String>> header : response.headers().map().entrySet()){
+            if(!header.getValue().isEmpty()){
+                headers.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+
+        return headers;
+    }
+
+}
@@ -0,0 +1,117 @@
+package tk.mihou.amatsuki.api.connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCutoffTest {
+
+    @Test
+    void markersThatStraddleChunks(){
+        String page = "<div class=\"fic_stats\">12k Views</div><div id=\"comments\">";
+        PageCutoff cutoff = PageCutoff.after("fic_stats", "</div>");
+        for(int chunk = 1; chunk <= page.length(); chunk++){
+            assertEquals(page.indexOf("<div id"), cut(cutoff, page, chunk), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void partialMatchesThatOverlapTheMarker(){
+        // The first "aa" is a partial match, the marker starts one byte later.
+        for(int chunk = 1; chunk <= 4; chunk++){
+            assertEquals(4, cut(PageCutoff.after("aab"), "aaabc", chunk), "chunks of " + chunk);
+            assertEquals(6, cut(PageCutoff.after("abac"), "ababacab", chunk), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void elementThatStraddlesChunks(){
+        String page = "<div class=\"wi_fic_showtags\"><div><a>Magic</a></div></div><div>comments</div>";
+        PageCutoff cutoff = PageCutoff.element("div", "wi_fic_showtags");
+        for(int chunk = 1; chunk <= page.length(); chunk++){
+            assertEquals(page.indexOf("<div>comments"), cut(cutoff, page, chunk), "chunks of " + chunk);
+        }
+    }
+
+    @Test
+    void cutoffIsAnIndexInTheBuffer(){
+        byte[] buffer = "xxxxfic_stats</div>yyyy".getBytes(StandardCharsets.US_ASCII);
+        PageCutoff.Scanner scanner = PageCutoff.after("fic_stats", "</div>").scanner();
+
+        assertEquals(-1, scanner.update(buffer, 4, 10));
+        assertEquals(19, scanner.update(buffer, 14, buffer.length - 14));
+    }
+
+    @Test
+    void markersHaveToAppearInOrder(){
+        assertEquals(-1, cut(PageCutoff.after("fic_stats", "</div>"), "</div><div class=\"fic_stats\">", 3));
+    }
+
+    @Test
+    void elementEndsAtItsOwnClosingTag(){
+        String page = "<div class=\"wi_fic_showtags\"><span><a>Magic</a></span><div class=\"more\"><a>Edit</a></div><span><a>Cozy</a></span></div><div>comments</div>";
+        assertEquals(page.indexOf("<div>comments"), cut(PageCutoff.element("div", "wi_fic_showtags"), page));
+    }
+
+    @Test
+    void elementIgnoresTagsThatOnlyStartTheSame(){
+        String page = "<div class=\"fic_stats\"><divider></divider><DIV\tclass=\"x\"></DIV></div>rest";
+        assertEquals(page.indexOf("rest"), cut(PageCutoff.element("div", "fic_stats"), page));
+    }
+
+    @Test
+    void elementThatIsNeverClosedReadsTheWholePage(){
+        assertEquals(-1, cut(PageCutoff.element("div", "wi_fic_showtags"), "<div class=\"wi_fic_showtags\"><div><a>Magic</a></div>"));
+    }
+
+    @Test
+    void elementAfterSeveralMarkers(){
+        String page = "<table class=\"table_pro_overview\"></table><table class=\"table_pro_overview\"><tr><td><table></table></td></tr></table><p>bio";
+        assertEquals(page.indexOf("<p>"), cut(PageCutoff.element("table", "table_pro_overview", "table_pro_overview"), page));
+    }
+
+    @Test
+    void firstAlternativeThatIsReachedWins(){
+        PageCutoff cutoff = PageCutoff.element("table", "table_pro_overview").orElement("div", "error_msg_profile");
+        String page = "<div class=\"error_msg_profile\">disabled</div><table class=\"table_pro_overview\"></table>";
+        assertEquals(page.indexOf("<table"), cut(cutoff, page));
+    }
+
+    @Test
+    void rejectsTagsThatArentNames(){
+        assertThrows(IllegalArgumentException.class, () -> PageCutoff.element("</div>", "fic_stats"));
+        assertThrows(IllegalArgumentException.class, () -> PageCutoff.element("", "fic_stats"));
+    }
+
+    /**
+     * Scans the page one byte at a time, which makes every marker straddle chunks.
+     * @param cutoff the cutoff.
+     * @param page the page.
+     * @return the length of the page up to the cutoff, -1 if it isn't reached.
+     */
+    static int cut(PageCutoff cutoff, String page){
+        return cut(cutoff, page, 1);
+    }
+
+    /**
+     * Scans the page in chunks of the given size.
+     * @param cutoff the cutoff.
+     * @param page the page.
+     * @param chunk the size of the chunks.
+     * @return the length of the page up to the cutoff, -1 if it isn't reached.
+     */
+    static int cut(PageCutoff cutoff, String page, int chunk){
+        byte[] bytes = page.getBytes(StandardCharsets.US_ASCII);
+        PageCutoff.Scanner scanner = cutoff.scanner();
+        for(int i = 0; i < bytes.length; i += chunk){
+            int end = scanner.update(bytes, i, Math.min(chunk, bytes.length - i));
+            if(end != -1)
+                return end;
+        }
+
+        return -1;
+    }
+
+}
@@ -0,0 +1,34 @@
+package tk.mihou.amatsuki.impl.cache;
+
+import org.junit.jupiter.api.Test;
+import tk.mihou.amatsuki.api.enums.OrderBy;
+import tk.mihou.amatsuki.api.enums.Rankings;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheKeysTest {
+
+    private static final String STUB = "http://localhost:8080";
+
+    @Test
+    void defaultSiteKeysAreUnchanged(){
+        String site = CacheKeys.DEFAULT_SITE;
+        assertEquals("HOMEPAGE-1", CacheKeys.homepage(site));
+        assertEquals("LATEST-SERIES-1", CacheKeys.latestSeries(site));
+        assertEquals("dream-AMATSUKI-SEARCH-STORY", CacheKeys.storySearch(site, "dream"));
+        assertEquals("dream-AMATSUKI-SEARCH-USER", CacheKeys.userSearch(site, "dream"));
+        assertSame(CacheKeys.ranking(site, Rankings.RISING, OrderBy.WEEKLY), CacheKeys.ranking(site, Rankings.RISING, OrderBy.WEEKLY));
+    }
+
+    @Test
+    void otherSitesHaveTheirOwnKeys(){
+        String site = CacheKeys.DEFAULT_SITE;
+        assertNotEquals(CacheKeys.homepage(site), CacheKeys.homepage(STUB));
+        assertNotEquals(CacheKeys.latestSeries(site), CacheKeys.latestSeries(STUB));
+        assertNotEquals(CacheKeys.storySearch(site, "dream"), CacheKeys.storySearch(STUB, "dream"));
+        assertNotEquals(CacheKeys.userSearch(site, "dream"), CacheKeys.userSearch(STUB, "dream"));
+        assertNotEquals(CacheKeys.ranking(site, Rankings.RISING, OrderBy.DAILY), CacheKeys.ranking(STUB, Rankings.RISING, OrderBy.DAILY));
+        assertNotEquals(CacheKeys.homepage(STUB), CacheKeys.homepage("http://localhost:8081"));
+    }
+
+}
@@ -0,0 +1,42 @@
+package tk.mihou.amatsuki.impl.cache.entities;
+
+import org.junit.jupiter.api.Test;
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheEntityTest {
+
+    @Test
+    void restoredEntitiesKeepTheirExpiry(){
+        long expiry = System.currentTimeMillis() + 1000;
+        CacheEntity<?> entity = CacheEntity.restore("value", "key", expiry, CacheTypes.DEFAULT);
+
+        assertEquals(expiry, entity.getExpiry());
+        assertEquals("value", entity.value());
+        assertFalse(entity.isList());
+    }
+
+    @Test
+    void restoredEntitiesRenewForTheLifespanOfTheirType(){
+        CacheEntity<?> ranking = CacheEntity.restore(Collections.emptyList(), "ranking", 0, CacheTypes.RANKINGS);
+        CacheEntity<?> story = CacheEntity.restore("story", "story", 0, CacheTypes.DEFAULT);
+        long before = System.currentTimeMillis();
+        ranking.renew();
+        story.renew();
+
+        assertExpiresIn(ranking, CacheManager.unit.toMillis(CacheManager.getLifespan(CacheTypes.RANKINGS)), before);
+        assertExpiresIn(story, CacheManager.unit.toMillis(CacheManager.getLifespan(CacheTypes.DEFAULT)), before);
+        assertTrue(ranking.isList());
+        assertEquals(CacheTypes.RANKINGS, ranking.getType());
+    }
+
+    private static void assertExpiresIn(CacheEntity<?> entity, long lifespan, long before){
+        assertTrue(entity.getExpiry() >= before + lifespan, "expires too early");
+        assertTrue(entity.getExpiry() <= System.currentTimeMillis() + lifespan, "expires too late");
+    }
+
+}
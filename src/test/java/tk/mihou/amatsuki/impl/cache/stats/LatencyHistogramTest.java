@@ -0,0 +1,56 @@
+package tk.mihou.amatsuki.impl.cache.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreUpperBoundsOfTheirBucket(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 0; i < 100; i++){
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i < 99 ? 10 : 1000));
+        }
+
+        assertEquals(100, histogram.getCount());
+        // The percentiles are at most 25% above the latency.
+        assertEquals(10, histogram.getPercentile(0.5), 2.5);
+        assertEquals(10, histogram.getPercentile(0.99), 2.5);
+        assertEquals(1000, histogram.getPercentile(0.999), 250);
+        assertEquals(19.9, histogram.getAverage(), 0.001);
+    }
+
+    @Test
+    void addedHistogramsArePercentilesOfEverySample(){
+        // A busy fast endpoint and a quiet slow one.
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for(int i = 0; i < 1000; i++){
+            fast.record(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        slow.record(TimeUnit.MILLISECONDS.toNanos(800));
+
+        LatencyHistogram combined = new LatencyHistogram().add(fast).add(slow);
+        assertEquals(1001, combined.getCount());
+        assertEquals(5, combined.getPercentile(0.5), 1.25);
+        assertEquals(5, combined.getPercentile(0.99), 1.25);
+        assertEquals(800, combined.getPercentile(1.0), 200);
+        assertEquals((1000 * 5 + 800) / 1001.0, combined.getAverage(), 0.001);
+
+        // The histograms that were added are left as they were.
+        assertEquals(1000, fast.getCount());
+        assertEquals(1, slow.getCount());
+    }
+
+    @Test
+    void emptyHistogram(){
+        LatencyHistogram histogram = new LatencyHistogram().add(new LatencyHistogram());
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertEquals(0, histogram.getAverage());
+    }
+
+}
@@ -0,0 +1,161 @@
+package tk.mihou.amatsuki.impl.codec;
+
+import org.junit.jupiter.api.Test;
+import tk.mihou.amatsuki.Fixtures;
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.api.parser.AmatsukiParser;
+import tk.mihou.amatsuki.api.parser.PageType;
+import tk.mihou.amatsuki.entities.latest.HomepageSnapshot;
+import tk.mihou.amatsuki.entities.latest.LatestUpdatesResult;
+import tk.mihou.amatsuki.entities.story.Story;
+import tk.mihou.amatsuki.entities.story.lower.StoryResults;
+import tk.mihou.amatsuki.entities.user.User;
+import tk.mihou.amatsuki.impl.parser.StoryParser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCodecTest {
+
+    @Test
+    void story(){
+        Story story = AmatsukiParser.parse(PageType.STORY, Fixtures.bytes("story.html"), Fixtures.STORY_URL);
+        Story copy = (Story) roundTrip(story, EntityCodec.STORY);
+
+        assertEquals(story, copy);
+        assertTrue(copy.isComplete());
+        assertEquals(story.getSynopsis(), copy.getSynopsis());
+        assertEquals(story.getTags(), copy.getTags());
+        assertEquals(story.getGenres(), copy.getGenres());
+        assertEquals(story.getSID(), copy.getSID());
+        assertEquals(story.getReaders(), copy.getReaders());
+    }
+
+    @Test
+    void partialStory(){
+        Story partial = StoryParser.parse(Fixtures.document("story.html"), Fixtures.STORY_URL, EnumSet.of(StoryField.TITLE, StoryField.VIEWS, StoryField.TAGS));
+        Story copy = (Story) roundTrip(partial, EntityCodec.PARTIAL_STORY);
+
+        assertEquals(partial, copy);
+        assertEquals(partial.getFields(), copy.getFields());
+        assertFalse(copy.isComplete());
+        assertEquals(partial.getTags(), copy.getTags());
+        assertNull(copy.getSynopsis());
+        assertNull(copy.getGenres());
+    }
+
+    @Test
+    void user(){
+        User user = AmatsukiParser.parse(PageType.USER, Fixtures.bytes("user.html"), Fixtures.USER_URL);
+        User copy = (User) roundTrip(user, EntityCodec.USER);
+
+        assertEquals(user.getName(), copy.getName());
+        assertEquals(user.getUID(), copy.getUID());
+        assertEquals(user.getTotalViews(), copy.getTotalViews());
+        assertEquals(user.getTotalFollowers(), copy.getTotalFollowers());
+        assertEquals(user.getHomepage(), copy.getHomepage());
+        assertFalse(copy.isDisabled());
+    }
+
+    @Test
+    void disabledUser(){
+        User user = AmatsukiParser.parse(PageType.USER, Fixtures.bytes("user-disabled.html"), "https://www.scribblehub.com/profile/30004/reader-30004/");
+        User copy = (User) roundTrip(user, EntityCodec.USER);
+
+        assertTrue(copy.isDisabled());
+        assertEquals(user.getName(), copy.getName());
+    }
+
+    @Test
+    void storyResults(){
+        List<StoryResults> ranking = AmatsukiParser.parse(PageType.STORY_RESULTS, Fixtures.bytes("ranking.html"), Fixtures.BASE_URI);
+        List<?> copy = (List<?>) roundTrip(ranking, EntityCodec.STORY_RESULTS);
+
+        assertFalse(ranking.isEmpty());
+        assertEquals(ranking.size(), copy.size());
+        StoryResults first = (StoryResults) copy.get(0);
+        assertEquals(ranking.get(0).getName(), first.getName());
+        assertEquals(ranking.get(0).getUrl(), first.getUrl());
+    }
+
+    @Test
+    void latestUpdates(){
+        HomepageSnapshot homepage = AmatsukiParser.parse(PageType.HOMEPAGE, Fixtures.bytes("homepage.html"), Fixtures.BASE_URI);
+        List<?> copy = (List<?>) roundTrip(homepage.getLatestUpdates(), EntityCodec.LATEST_UPDATES);
+
+        assertEquals(homepage.getLatestUpdates().size(), copy.size());
+        LatestUpdatesResult first = (LatestUpdatesResult) copy.get(0);
+        assertEquals(homepage.getLatestUpdates().get(0).getStoryURL(), first.getStoryURL());
+        assertEquals(homepage.getLatestUpdates().get(0).getChapterTitle(), first.getChapterTitle());
+    }
+
+    @Test
+    void homepage(){
+        HomepageSnapshot homepage = AmatsukiParser.parse(PageType.HOMEPAGE, Fixtures.bytes("homepage.html"), Fixtures.BASE_URI);
+        HomepageSnapshot copy = (HomepageSnapshot) roundTrip(homepage, EntityCodec.HOMEPAGE);
+
+        assertEquals(homepage.getLatestTopics().size(), copy.getLatestTopics().size());
+        assertEquals(homepage.getLatestUpdates().size(), copy.getLatestUpdates().size());
+        assertEquals(homepage.getLatestTopics().get(0).getTitle(), copy.getLatestTopics().get(0).getTitle());
+    }
+
+    @Test
+    void emptyListsDecodeAsEmptyLists(){
+        // An empty list has nothing to tell its kind by, it is served as an empty ranking or empty latest updates alike.
+        List<LatestUpdatesResult> updates = new ArrayList<>();
+        assertEquals(Collections.emptyList(), roundTrip(updates, EntityCodec.STORY_RESULTS));
+    }
+
+    @Test
+    void unsupported(){
+        assertEquals(EntityCodec.UNSUPPORTED, EntityCodec.kind(Collections.singletonList("text")));
+        assertFalse(EntityCodec.supports("text"));
+        assertThrows(IllegalArgumentException.class, () -> EntityCodec.encode("text"));
+    }
+
+    @Test
+    void rejectsOtherVersions(){
+        byte[] encoded = bytes(EntityCodec.encode(AmatsukiParser.parse(PageType.USER, Fixtures.bytes("user.html"), Fixtures.USER_URL)));
+        encoded[0] = EntityCodec.VERSION + 1;
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> EntityCodec.decode(ByteBuffer.wrap(encoded)));
+        assertTrue(error.getMessage().contains("version"));
+    }
+
+    @Test
+    void rejectsUnknownKinds(){
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{EntityCodec.VERSION, 42});
+        assertThrows(IllegalArgumentException.class, () -> EntityCodec.decode(buffer));
+    }
+
+    /**
+     * Encodes and decodes the value, the decoded value has to encode to the same bytes
+     * (which catches a field that is written but not read back).
+     * @param value the value to round-trip.
+     * @param kind the kind the value should be encoded as.
+     * @return the decoded value.
+     */
+    private static Object roundTrip(Object value, byte kind){
+        assertEquals(kind, EntityCodec.kind(value));
+
+        byte[] encoded = bytes(EntityCodec.encode(value));
+        assertEquals(EntityCodec.VERSION, encoded[0]);
+        assertEquals(kind, encoded[1]);
+
+        Object decoded = EntityCodec.decode(ByteBuffer.wrap(encoded));
+        assertArrayEquals(encoded, bytes(EntityCodec.encode(decoded)));
+        return decoded;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer){
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,168 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionPlanTest {
+
+    private static final String PAGE = "<html><head><meta name=title content=Library></head><body>"
+            + "<div class=desc><p>First</p><p>Second</p></div>"
+            + "<p>Outside</p>"
+            + "<div class=stats><span class=item>12.3k Views</span><span class=item>1,204 Favorites</span></div>"
+            + "<table class=overview><tr><th>Series</th><td>3</td></tr><tr><th>Birthday</th><td>Mar 14</td></tr></table>"
+            + "<table class=overview><tr><th>Followers</th><td>1,022</td></tr></table>"
+            + "</body></html>";
+
+    @Test
+    void readsTheFirstMatchAndEveryMatchInsideOfTheScope(){
+        Page page = ExtractionPlan.<Page>builder()
+                .first("title", "meta[name=title]", (e, p) -> p.title = e.attr("content"))
+                .each("synopsis", ".desc", "p", (e, p) -> p.paragraphs.add(e.text()))
+                .build()
+                .extract(document(PAGE), new Page());
+
+        assertEquals("Library", page.title);
+        // The paragraph outside of the scope isn't read.
+        assertEquals(Arrays.asList("First", "Second"), page.paragraphs);
+    }
+
+    @Test
+    void readsLabeledRowsOfEveryScope(){
+        Page page = ExtractionPlan.<Page>builder()
+                .labeled("overview", "table.overview", "tr", ExtractionPlanTest::header, rows("Series", "Followers"))
+                .labeled("statistics", ".stats", "span.item", ExtractionPlanTest::label, "Favorites", (e, p) -> p.values.put("Favorites", NumberParser.parseLong(e.text())))
+                .build()
+                .extract(document(PAGE), new Page());
+
+        assertEquals(3L, page.values.get("Series"));
+        assertEquals(1_022L, page.values.get("Followers"));
+        assertEquals(1_204L, page.values.get("Favorites"));
+    }
+
+    @Test
+    void missingRequiredField(){
+        ExtractionPlan<Page> plan = ExtractionPlan.<Page>builder()
+                .first("creator", "meta[name=creator]", (e, p) -> p.title = e.attr("content"))
+                .build();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> plan.extract(document(PAGE), new Page()));
+        assertTrue(error.getMessage().contains("creator"));
+    }
+
+    @Test
+    void missingScope(){
+        ExtractionPlan<Page> plan = ExtractionPlan.<Page>builder()
+                .each("tags", ".tags", "a", (e, p) -> p.paragraphs.add(e.text()))
+                .build();
+
+        assertThrows(IllegalStateException.class, () -> plan.extract(document(PAGE), new Page()));
+        // An empty scope is fine.
+        assertTrue(plan.extract(document("<div class=tags></div>"), new Page()).paragraphs.isEmpty());
+    }
+
+    @Test
+    void missingOptionalField(){
+        Page page = ExtractionPlan.<Page>builder()
+                .optional("creator", "meta[name=creator]", (e, p) -> p.title = e.attr("content"))
+                .build()
+                .extract(document(PAGE), new Page());
+
+        assertNull(page.title);
+    }
+
+    @Test
+    void missingLabel(){
+        ExtractionPlan<Page> plan = ExtractionPlan.<Page>builder()
+                .labeled("overview", "table.overview", "tr", ExtractionPlanTest::header, rows("Series", "Views"))
+                .build();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> plan.extract(document(PAGE), new Page()));
+        assertTrue(error.getMessage().contains("Views"));
+        assertTrue(error.getMessage().contains("overview"));
+    }
+
+    @Test
+    void missingOptionalLabel(){
+        Page page = ExtractionPlan.<Page>builder()
+                .labeled("overview", "table.overview", "tr", ExtractionPlanTest::header, rows("Series"), rows("Homepage", "Birthday"))
+                .build()
+                .extract(document(PAGE), new Page());
+
+        assertEquals(3L, page.values.get("Series"));
+        assertFalse(page.values.containsKey("Homepage"));
+    }
+
+    @Test
+    void requiredUnlessSkipsTheChecks(){
+        ExtractionPlan<Page> plan = ExtractionPlan.<Page>builder()
+                .optional("disabled", ".error", (e, p) -> p.title = "disabled")
+                .first("creator", "meta[name=creator]", (e, p) -> p.title = e.attr("content"))
+                .requiredUnless(p -> "disabled".equals(p.title))
+                .build();
+
+        assertEquals("disabled", plan.extract(document("<div class=error></div>"), new Page()).title);
+        assertThrows(IllegalStateException.class, () -> plan.extract(document(PAGE), new Page()));
+    }
+
+    @Test
+    void projectionOnlyReadsTheTaggedFieldsThatWereAskedFor(){
+        ExtractionPlan<Page> plan = ExtractionPlan.<Page>builder()
+                .first("title", "meta[name=title]", (e, p) -> p.title = e.attr("content"))
+                .tagged("synopsis").each("synopsis", ".desc", "p", (e, p) -> p.paragraphs.add(e.text()))
+                .tagged("creator").first("creator", "meta[name=creator]", (e, p) -> p.title = e.attr("content"))
+                .build();
+
+        // The creator isn't on the page, it is only required when it is projected.
+        Page page = plan.project(Collections.singleton("synopsis")).extract(document(PAGE), new Page());
+        assertEquals("Library", page.title);
+        assertEquals(2, page.paragraphs.size());
+
+        assertThrows(IllegalStateException.class, () -> plan.extract(document(PAGE), new Page()));
+        assertTrue(plan.project(Collections.emptySet()).extract(document(PAGE), new Page()).paragraphs.isEmpty());
+    }
+
+    private static Document document(String html){
+        return Jsoup.parse(html);
+    }
+
+    private static Map<String, BiConsumer<Element, Page>> rows(String... labels){
+        Map<String, BiConsumer<Element, Page>> rows = new LinkedHashMap<>();
+        for(String label : labels){
+            rows.put(label, (e, p) -> p.values.put(label, NumberParser.parseLong(e.getElementsByTag("td").text(), -1)));
+        }
+
+        return rows;
+    }
+
+    private static String header(Element row){
+        Element header = row.getElementsByTag("th").first();
+        return header == null ? "" : header.text();
+    }
+
+    private static String label(Element stat){
+        String text = stat.text();
+        return text.substring(text.indexOf(' ') + 1);
+    }
+
+    private static class Page {
+
+        private String title;
+        private final List<String> paragraphs = new ArrayList<>();
+        private final Map<String, Long> values = new HashMap<>();
+
+    }
+
+}
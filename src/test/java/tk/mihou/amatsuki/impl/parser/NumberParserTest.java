@@ -0,0 +1,71 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberParserTest {
+
+    @Test
+    void suffixes(){
+        assertEquals(12_300, NumberParser.parseLong("12.3k Views"));
+        assertEquals(263_500, NumberParser.parseLong("263.5k"));
+        assertEquals(1_200_000, NumberParser.parseLong("1.2m"));
+        assertEquals(2_230_000, NumberParser.parseLong("2.23M Words"));
+        assertEquals(3_000_000_000L, NumberParser.parseLong("3b"));
+        assertEquals(7_000, NumberParser.parseLong("7K"));
+    }
+
+    @Test
+    void suffixHasToFollowTheNumber(){
+        // "3 Chapters/Week" isn't 3000 nor is "12 books" 12 billion.
+        assertEquals(3, NumberParser.parseLong("3 Chapters/Week"));
+        assertEquals(12, NumberParser.parseLong("12 books"));
+        assertEquals(9, NumberParser.parseLong("9 Chapters/Week"));
+    }
+
+    @Test
+    void commas(){
+        assertEquals(1_204, NumberParser.parseInt("1,204 Favorites"));
+        assertEquals(18_494, NumberParser.parseInt("18,494"));
+        assertEquals(1_234_567, NumberParser.parseLong("1,234,567 Words"));
+        // Commas are always thousands separators.
+        assertEquals(15_000, NumberParser.parseLong("1,5k"));
+    }
+
+    @Test
+    void firstNumberOfTheText(){
+        assertEquals(312, NumberParser.parseInt("(312 ratings)"));
+        assertEquals(24_680, NumberParser.parseInt("https://www.scribblehub.com/profile/24680/mihou/"));
+        assertEquals(4, NumberParser.parseLong("4.52 (312 ratings)"));
+    }
+
+    @Test
+    void fractionsBeyondTheScaleAreIgnored(){
+        assertEquals(1_234, NumberParser.parseLong("1.2345678901234k"));
+    }
+
+    @Test
+    void noNumber(){
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("Views"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong(""));
+        assertEquals(-1, NumberParser.parseLong("--", -1));
+        assertEquals(-1, NumberParser.parseLong(null, -1));
+    }
+
+    @Test
+    void overflow(){
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("99999999999999999999"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("9223372036854775807k"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt("3b"));
+        assertEquals(Integer.MAX_VALUE, NumberParser.parseInt("2,147,483,647"));
+    }
+
+    @Test
+    void strip(){
+        assertEquals("263.5k", NumberParser.strip("263.5k Views", true));
+        assertEquals("263.5", NumberParser.strip("263.5k Views", false));
+        assertEquals("1.2m", NumberParser.strip("1.2m", true));
+    }
+
+}
@@ -0,0 +1,40 @@
+package tk.mihou.amatsuki.impl.parser;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import tk.mihou.amatsuki.Fixtures;
+import tk.mihou.amatsuki.api.enums.StoryField;
+import tk.mihou.amatsuki.entities.story.Story;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoryParserTest {
+
+    @Test
+    void tags(){
+        Story story = StoryParser.parse(Fixtures.document("story.html"), Fixtures.STORY_URL);
+        assertEquals(12, story.getTags().size());
+        assertEquals("Books", story.getTags().get(0));
+        assertEquals("Mystery Solving", story.getTags().get(11));
+    }
+
+    @Test
+    void tagsAreOnlyTheLinksInsideOfTheTagSpans(){
+        // The links next to the tags, e.g. to edit them, aren't tags.
+        String html = Fixtures.html("story.html").replace("Mystery Solving</a></span></div>",
+                "Mystery Solving</a></span><div class=\"more\"><a href=\"#\">Edit</a></div><a href=\"#\">Show more</a></div>");
+        Document doc = Jsoup.parse(html, Fixtures.BASE_URI);
+
+        Story story = StoryParser.parse(doc, Fixtures.STORY_URL);
+        assertEquals(12, story.getTags().size());
+        assertFalse(story.getTags().contains("Edit"));
+        assertFalse(story.getTags().contains("Show more"));
+
+        Story partial = StoryParser.parse(doc, Fixtures.STORY_URL, EnumSet.of(StoryField.TAGS));
+        assertEquals(story.getTags(), partial.getTags());
+    }
+
+}
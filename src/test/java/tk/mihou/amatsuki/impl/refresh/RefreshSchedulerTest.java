@@ -0,0 +1,61 @@
+package tk.mihou.amatsuki.impl.refresh;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tk.mihou.amatsuki.impl.cache.CacheManager;
+import tk.mihou.amatsuki.impl.cache.enums.CacheTypes;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshSchedulerTest {
+
+    private static final String KEY = "REFRESH-SCHEDULER-TEST";
+
+    private final RefreshScheduler scheduler = new RefreshScheduler();
+
+    @AfterEach
+    void cleanUp(){
+        scheduler.shutdown();
+        CacheManager.enable(CacheTypes.SEARCH);
+        CacheManager.invalidate(KEY);
+    }
+
+    @Test
+    void keysOfADisabledTypeAreRefreshedOnceItIsEnabled() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        CacheManager.disable(CacheTypes.SEARCH);
+        scheduler.register(KEY, CacheTypes.SEARCH, () -> {
+            loads.incrementAndGet();
+            CacheManager.addCache(Collections.emptyList(), KEY, CacheTypes.SEARCH);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        });
+        assertFalse(scheduler.isEmpty());
+
+        // A lead of 4 seconds checks the keys every second.
+        scheduler.start(4, 0, TimeUnit.SECONDS);
+        Thread.sleep(300);
+        assertEquals(0, loads.get());
+
+        CacheManager.enable(CacheTypes.SEARCH);
+        long deadline = System.currentTimeMillis() + 5000;
+        while(loads.get() == 0 && System.currentTimeMillis() < deadline){
+            Thread.sleep(50);
+        }
+
+        assertEquals(1, loads.get());
+        assertTrue(CacheManager.getExpiry(KEY) > System.currentTimeMillis());
+    }
+
+    @Test
+    void shutdownForgetsTheKeys(){
+        scheduler.register(KEY, CacheTypes.SEARCH, () -> CompletableFuture.completedFuture(null));
+        scheduler.shutdown();
+        assertTrue(scheduler.isEmpty());
+    }
+
+}